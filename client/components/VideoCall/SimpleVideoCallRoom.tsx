@@ -115,6 +115,15 @@ const VideoCallRoom: React.FC<VideoCallRoomProps> = ({ room, onLeave }) => {
       });
     };
 
+    const handleJoinRequestsExpired = ({ userIds }: { userIds: string[] }) => {
+      setPendingRequests(prev => prev.filter(r => !userIds.includes(r.userId)));
+    };
+
+    // The server re-sends the whole queue after a reconnect; the requests follow right after this
+    const handleJoinRequestsReplaced = () => {
+      setPendingRequests([]);
+    };
+
     const handleVideoToggled = ({ enabled }: { enabled: boolean }) => {
       setIsVideoEnabled(enabled);
     };
@@ -145,6 +154,8 @@ const VideoCallRoom: React.FC<VideoCallRoomProps> = ({ room, onLeave }) => {
     simpleVideoCallService.addEventListener('user_joined', handleUserJoined);
     simpleVideoCallService.addEventListener('user_left', handleUserLeft);
     simpleVideoCallService.addEventListener('join_request_received', handleJoinRequestReceived);
+    simpleVideoCallService.addEventListener('join_requests_expired', handleJoinRequestsExpired);
+    simpleVideoCallService.addEventListener('join_requests_replaced', handleJoinRequestsReplaced);
     simpleVideoCallService.addEventListener('video_toggled', handleVideoToggled);
     simpleVideoCallService.addEventListener('audio_toggled', handleAudioToggled);
     simpleVideoCallService.addEventListener('participant_media_toggled', handleParticipantMediaToggled);
@@ -170,6 +181,8 @@ const VideoCallRoom: React.FC<VideoCallRoomProps> = ({ room, onLeave }) => {
       simpleVideoCallService.removeEventListener('user_joined', handleUserJoined);
       simpleVideoCallService.removeEventListener('user_left', handleUserLeft);
       simpleVideoCallService.removeEventListener('join_request_received', handleJoinRequestReceived);
+      simpleVideoCallService.removeEventListener('join_requests_expired', handleJoinRequestsExpired);
+      simpleVideoCallService.removeEventListener('join_requests_replaced', handleJoinRequestsReplaced);
       simpleVideoCallService.removeEventListener('video_toggled', handleVideoToggled);
       simpleVideoCallService.removeEventListener('audio_toggled', handleAudioToggled);
       simpleVideoCallService.removeEventListener('participant_media_toggled', handleParticipantMediaToggled);
@@ -227,6 +240,16 @@ const VideoCallRoom: React.FC<VideoCallRoomProps> = ({ room, onLeave }) => {
     setPendingRequests(prev => prev.filter(r => r.userId !== request.userId));
   };
 
+  const handleApproveAllJoinRequests = () => {
+    simpleVideoCallService.approveJoinRequests(pendingRequests.map(r => r.userId));
+    setPendingRequests([]);
+  };
+
+  const handleRejectAllJoinRequests = () => {
+    simpleVideoCallService.rejectJoinRequests(pendingRequests.map(r => r.userId));
+    setPendingRequests([]);
+  };
+
   const handleSwitchCamera = async (deviceId: string) => {
     try {
       await simpleVideoCallService.switchCamera(deviceId);
@@ -350,7 +373,31 @@ const VideoCallRoom: React.FC<VideoCallRoomProps> = ({ room, onLeave }) => {
           if (isOwner && hasRequests) {
           return (
             <div className="fixed top-24 left-0 right-0 bg-amber-100 dark:bg-amber-900/80 backdrop-blur-sm border-b border-amber-300 dark:border-amber-700 p-4 z-40 shadow-lg">
-              <h3 className="font-semibold mb-3 text-amber-800 dark:text-amber-200">🔔 Pending Join Requests ({pendingRequests.length}):</h3>
+              <div className="flex items-center justify-between mb-3">
+                <h3 className="font-semibold text-amber-800 dark:text-amber-200">🔔 Pending Join Requests ({pendingRequests.length}):</h3>
+                {pendingRequests.length > 1 && (
+                  <div className="flex gap-3">
+                    <Button
+                      size="sm"
+                      variant="outline"
+                      className="text-green-600 border-green-600 hover:bg-green-600 hover:text-white font-medium"
+                      onClick={handleApproveAllJoinRequests}
+                    >
+                      <UserCheck size={16} />
+                      Approve all
+                    </Button>
+                    <Button
+                      size="sm"
+                      variant="outline"
+                      className="text-red-600 border-red-600 hover:bg-red-600 hover:text-white font-medium"
+                      onClick={handleRejectAllJoinRequests}
+                    >
+                      <UserX size={16} />
+                      Reject all
+                    </Button>
+                  </div>
+                )}
+              </div>
               <div className="space-y-3">
                 {pendingRequests.map((request) => (
                   <div key={`${request.userId}-${request.timestamp}`} className="flex items-center justify-between bg-card p-3 rounded-lg shadow border border-border">
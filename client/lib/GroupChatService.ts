@@ -7,12 +7,22 @@ import groupManagerService from './GroupManagerService';
 import groupConnectionManagerService from './GroupConnectionManagerService';
 import groupNotificationService from './GroupNotificationService';
 
+export interface AttachmentRef {
+  id: string;
+  name?: string;
+  contentType?: string;
+  size: number;
+}
+
 export interface GroupMessage {
   groupId: string;
   senderId: string;
   senderName?: string;
   content: string;
   timestamp?: Date;
+  attachment?: AttachmentRef;
+  seq?: number;             // per-group sequence number assigned by the server
+  clientMessageId?: string; // lets the server drop duplicate sends on retry
 }
 
 export interface Group {
@@ -49,6 +59,12 @@ class GroupChatService {
   private baseUrl = 'http://localhost:8080';
   private connectionState = false;
   private currentUserId: string | null = null;
+  private lastSeq: Map<string, number> = new Map();
+  private syncingGroups: Set<string> = new Set();
+  // Live messages that revealed a gap while a sync was already running, re-checked once it ends
+  private heldDuringSync: Map<string, { message: any; onMessage: (message: GroupMessage) => void }[]> = new Map();
+  private useSockJs = false;      // set once the native endpoint has failed to connect
+  private nativeConnected = false;
 
   constructor() {
     // Initialization can be deferred or done here if needed
@@ -72,9 +88,11 @@ class GroupChatService {
       return;
     }
 
-    const socket = new SockJS(`${this.baseUrl}/ws/group`);
+    // Plain WebSocket first (no SockJS framing); SockJS once that has failed to connect
     this.stompClient = new Client({
-      webSocketFactory: () => socket,
+      webSocketFactory: () => this.useSockJs
+        ? new SockJS(`${this.baseUrl}/ws/group`)
+        : new WebSocket(`${this.baseUrl.replace(/^http/, 'ws')}/ws/group-native`),
       debug: (str) => {
         console.log('STOMP Debug:', str);
       },
@@ -83,9 +101,20 @@ class GroupChatService {
       heartbeatOutgoing: 4000,
     });
 
+    // A native socket that closes before STOMP ever connected (a proxy that doesn't pass
+    // WebSocket upgrades, a blocked port) sends the reconnect attempts through SockJS instead
+    this.stompClient.onWebSocketClose = () => {
+      if (!this.useSockJs && !this.nativeConnected) {
+        console.log('Native WebSocket failed, falling back to SockJS');
+        this.useSockJs = true;
+      }
+    };
+
     this.stompClient.onConnect = () => {
       console.log('Connected to STOMP server for group chat');
       this.connectionState = true;
+      this.nativeConnected = !this.useSockJs;
+      this.restoreSubscriptions();
       const userGroups = this.getUserGroups();
       userGroups.forEach(group => {
         groupConnectionManagerService.updateConnectionStatus(group.groupId, 'connected', {
@@ -129,6 +158,8 @@ class GroupChatService {
       this.stompClient.onConnect = () => { // Re-assign onConnect for this specific promise
         console.log('Connected to STOMP server for group chat (connect method)');
         this.connectionState = true;
+        this.nativeConnected = !this.useSockJs;
+        this.restoreSubscriptions();
         resolve();
       };
 
@@ -208,6 +239,36 @@ class GroupChatService {
     }
   }
 
+  // Uploads the file as the raw request body; the returned reference goes in GroupMessage.attachment
+  async uploadAttachment(groupId: string, file: File): Promise<AttachmentRef> {
+    if (!this.currentUserId) throw new Error("User not initialized");
+    const response = await fetch(`${this.baseUrl}/api/groups/${groupId}/attachments?name=${encodeURIComponent(file.name)}`, {
+      method: 'POST',
+      headers: {
+        'Content-Type': file.type || 'application/octet-stream',
+        'X-User-Id': this.currentUserId,
+      },
+      body: file,
+    });
+
+    if (!response.ok) {
+      throw new Error(`Failed to upload attachment: ${response.statusText}`);
+    }
+    return response.json();
+  }
+
+  async downloadAttachment(groupId: string, attachment: AttachmentRef): Promise<Blob> {
+    if (!this.currentUserId) throw new Error("User not initialized");
+    const response = await fetch(`${this.baseUrl}/api/groups/${groupId}/attachments/${attachment.id}`, {
+      headers: { 'X-User-Id': this.currentUserId },
+    });
+
+    if (!response.ok) {
+      throw new Error(`Failed to download attachment: ${response.statusText}`);
+    }
+    return response.blob();
+  }
+
   async joinGroup(token: string, userId: string, userName: string): Promise<JoinGroupResponse> {
     if (!this.currentUserId) throw new Error("User not initialized");
     try {
@@ -367,53 +428,164 @@ class GroupChatService {
       return;
     }
 
-    const destination = `/topic/group/${groupId}`;
+    // Every listener registered for the group hears its messages
+    if (!this.messageListeners.has(groupId)) {
+      this.messageListeners.set(groupId, []);
+    }
+    const listeners = this.messageListeners.get(groupId)!;
+    if (!listeners.includes(onMessage)) {
+      listeners.push(onMessage);
+    }
+
     if (this.subscriptions.has(groupId)) {
       console.log('Already subscribed to group:', groupId);
-      // Potentially update listener if different, or just return
-      // this.subscriptions.get(groupId)?.unsubscribe(); // If re-subscription with new handler is needed
+      return;
+    }
+    this.openSubscription(groupId);
+
+    // Subscribing again after a disconnect(): fetch whatever was sent while we were away
+    if (this.lastSeq.has(groupId)) {
+      this.syncGroup(groupId, this.deliverTo(groupId));
     }
 
+    console.log(`Subscribed to group ${groupId}`);
+  }
+
+  private openSubscription(groupId: string): void {
+    if (!this.stompClient) return;
+    // "/c" is the compact variant: short keys, epoch-millis timestamps (see expandCompactMessage)
+    const destination = `/topic/group/${groupId}/c`;
+    const deliver = this.deliverTo(groupId);
     const subscription = this.stompClient.subscribe(destination, (message) => {
       try {
-        const receivedMessage = JSON.parse(message.body);
-        const senderName = receivedMessage.senderName || this.getUserDisplayName(receivedMessage.senderId, groupId);
-
-        const groupMessage: GroupMessage = {
-          groupId: String(receivedMessage.groupId),
-          senderId: receivedMessage.senderId,
-          senderName: senderName,
-          content: receivedMessage.content,
-          timestamp: receivedMessage.timestamp ? new Date(receivedMessage.timestamp) : new Date()
-        };
-
-        this.saveMessageWithUserInfo(groupMessage.groupId, groupMessage, groupMessage.senderId === this.currentUserId);
-
-        if (!this.activeGroups.has(groupId)) {
-          const messagePreview = groupMessage.content.length > 50
-            ? groupMessage.content.substring(0, 50) + '...'
-            : groupMessage.content;
-          groupNotificationService.notifyNewMessage(
-            groupId,
-            this.getGroupInfo(groupId)?.groupName || `Group ${groupId}`,
-            senderName, // Use the resolved senderName
-            messagePreview
-          );
-        }
-        onMessage(groupMessage);
+        // Busy groups may be delivered as one frame holding an array of messages
+        const parsed = JSON.parse(message.body);
+        const receivedMessages = Array.isArray(parsed) ? parsed : [parsed];
+        receivedMessages.forEach((receivedMessage) =>
+          this.handleGroupMessage(groupId, this.expandCompactMessage(receivedMessage), deliver));
       } catch (error) {
         console.error('Error parsing group message:', error, message.body);
       }
     });
-
     this.subscriptions.set(groupId, subscription);
-    // Add to messageListeners if specific callbacks per group are needed beyond the main onMessage
-    if (!this.messageListeners.has(groupId)) {
-      this.messageListeners.set(groupId, []);
+  }
+
+  private deliverTo(groupId: string): (message: GroupMessage) => void {
+    return (message) => this.messageListeners.get(groupId)?.forEach(listener => listener(message));
+  }
+
+  // stompjs reconnects on its own (reconnectDelay) but doesn't restore subscriptions, and the old
+  // handles belong to the dead connection. Subscribe every group again, then catch up: this is
+  // also where a server that restarted its seq numbering is noticed (the sync comes back reset).
+  private restoreSubscriptions(): void {
+    this.subscriptions.clear();
+    this.messageListeners.forEach((_, groupId) => {
+      this.openSubscription(groupId);
+      if (this.lastSeq.has(groupId)) {
+        this.syncGroup(groupId, this.deliverTo(groupId));
+      }
+    });
+  }
+
+  private expandCompactMessage(compact: any): any {
+    return {
+      seq: compact.q,
+      groupId: compact.g,
+      senderId: compact.s,
+      senderName: compact.n,
+      content: compact.c ?? '',
+      timestamp: compact.t,
+      clientMessageId: compact.k,
+      attachment: compact.a ? { id: compact.a.i, name: compact.a.n, contentType: compact.a.m, size: compact.a.z } : undefined,
+    };
+  }
+
+  private handleGroupMessage(groupId: string, receivedMessage: any, onMessage: (message: GroupMessage) => void): void {
+    const seq: number | undefined = receivedMessage.seq;
+    if (seq !== undefined && seq !== null) {
+      const last = this.lastSeq.get(groupId);
+      if (last !== undefined && seq <= last) {
+        return; // already delivered, e.g. by a catch-up sync
+      }
+      if (last !== undefined && seq > last + 1) {
+        if (this.syncingGroups.has(groupId)) {
+          // The running sync may already be past this message's page; look at it again afterwards
+          const held = this.heldDuringSync.get(groupId) ?? [];
+          held.push({ message: receivedMessage, onMessage });
+          this.heldDuringSync.set(groupId, held);
+        } else {
+          // Frames were lost; the sync fetches this message along with the missing ones
+          this.syncGroup(groupId, onMessage);
+        }
+        return;
+      }
+      this.lastSeq.set(groupId, seq);
     }
-    this.messageListeners.get(groupId)?.push(onMessage);
 
-    console.log(`Subscribed to group ${groupId}`);
+    const senderName = receivedMessage.senderName || this.getUserDisplayName(receivedMessage.senderId, groupId);
+
+    const groupMessage: GroupMessage = {
+      groupId: String(receivedMessage.groupId),
+      senderId: receivedMessage.senderId,
+      senderName: senderName,
+      content: receivedMessage.content,
+      timestamp: receivedMessage.timestamp ? new Date(receivedMessage.timestamp) : new Date(),
+      attachment: receivedMessage.attachment || undefined
+    };
+
+    this.saveMessageWithUserInfo(groupMessage.groupId, groupMessage, groupMessage.senderId === this.currentUserId);
+
+    if (!this.activeGroups.has(groupId)) {
+      const messagePreview = groupMessage.content.length > 50
+        ? groupMessage.content.substring(0, 50) + '...'
+        : groupMessage.content;
+      groupNotificationService.notifyNewMessage(
+        groupId,
+        this.getGroupInfo(groupId)?.groupName || `Group ${groupId}`,
+        senderName, // Use the resolved senderName
+        messagePreview
+      );
+    }
+    onMessage(groupMessage);
+  }
+
+  // Fetches every message after the last sequence number seen for the group
+  async syncGroup(groupId: string, onMessage: (message: GroupMessage) => void): Promise<void> {
+    if (!this.currentUserId || this.syncingGroups.has(groupId)) return;
+    this.syncingGroups.add(groupId);
+    try {
+      let hasMore = true;
+      while (hasMore) {
+        const after = this.lastSeq.get(groupId) ?? 0;
+        const response = await fetch(`${this.baseUrl}/api/groups/${groupId}/messages?after=${after}`, {
+          headers: { 'X-User-Id': this.currentUserId },
+        });
+        if (!response.ok) {
+          throw new Error(`Failed to sync group ${groupId}: ${response.statusText}`);
+        }
+
+        const result = await response.json();
+        if (result.reset) {
+          // The server no longer has (or never had) our range; continue from what it has
+          this.lastSeq.set(groupId, result.messages.length > 0 ? result.messages[0].seq - 1 : result.latestSeq);
+        }
+        result.messages.forEach((message: any) => this.handleGroupMessage(groupId, message, onMessage));
+        hasMore = result.hasMore && result.messages.length > 0;
+      }
+    } catch (error) {
+      console.error('Error syncing group messages:', error);
+    } finally {
+      this.syncingGroups.delete(groupId);
+    }
+
+    // Delivered if the sync caught up to them, dropped if it already did, and a new sync if
+    // there is still a gap in front of them
+    const held = this.heldDuringSync.get(groupId);
+    if (held) {
+      this.heldDuringSync.delete(groupId);
+      held.sort((a, b) => a.message.seq - b.message.seq)
+        .forEach(({ message, onMessage: callback }) => this.handleGroupMessage(groupId, message, callback));
+    }
   }
 
   unsubscribeFromGroup(groupId: string): void {
@@ -527,6 +699,8 @@ class GroupChatService {
       senderId: message.senderId,
       senderName: message.senderName,
       content: message.content,
+      attachment: message.attachment,
+      clientMessageId: message.clientMessageId || crypto.randomUUID(),
       timestamp: new Date().toISOString() // Add timestamp if backend expects it
     };
 
@@ -539,6 +713,38 @@ class GroupChatService {
     console.log('Message sent to backend:', backendMessage);
   }
 
+  // Typing indicators and read receipts go over a separate lightweight channel; the server
+  // coalesces them and delivers { typing: {userId: bool}, read: {userId: seq} } a few times a second
+  sendTyping(groupId: string, typing: boolean): void {
+    if (!this.stompClient?.connected || !this.currentUserId) return;
+    this.stompClient.publish({
+      destination: '/app/chat/typing',
+      body: JSON.stringify({ groupId: parseInt(groupId), userId: this.currentUserId, typing }),
+    });
+  }
+
+  sendReadReceipt(groupId: string, lastReadSeq: number): void {
+    if (!this.stompClient?.connected || !this.currentUserId) return;
+    this.stompClient.publish({
+      destination: '/app/chat/read',
+      body: JSON.stringify({ groupId: parseInt(groupId), userId: this.currentUserId, lastReadSeq }),
+    });
+  }
+
+  subscribeToGroupSignals(
+    groupId: string,
+    onSignals: (signals: { typing?: Record<string, boolean>; read?: Record<string, number> }) => void
+  ): StompSubscription | null {
+    if (!this.stompClient?.connected) return null;
+    return this.stompClient.subscribe(`/topic/group/${groupId}/ephemeral`, (message) => {
+      try {
+        onSignals(JSON.parse(message.body));
+      } catch (error) {
+        console.error('Error parsing group signals:', error, message.body);
+      }
+    });
+  }
+
   private saveMessageWithUserInfo(groupId: string, message: GroupMessage, isSelf: boolean): void {
     const groupInfo = groupStorageService.getGroupInfo(groupId);
     let senderName = message.senderName;
@@ -33,6 +33,8 @@ export interface JoinRequest {
 class SimpleVideoCallService {
   private currentRoom: VideoRoom | null = null;
   private localStream: MediaStream | null = null;
+  // Set while an approved join is still waiting for camera/microphone access
+  private localStreamPromise: Promise<MediaStream> | null = null;
   private peerConnections: Map<string, RTCPeerConnection> = new Map();
   private eventListeners: Map<string, Function[]> = new Map();
   private pendingJoinRequests: JoinRequest[] = [];
@@ -120,6 +122,20 @@ class SimpleVideoCallService {
       case 'join_request':
         this.handleJoinRequest(message.data);
         break;
+      case 'join_requests':
+        // Several requests queued on the server during one announce window, or the whole
+        // queue ("replace") after we reconnect
+        if (message.data.replace) {
+          this.pendingJoinRequests = [];
+          this.emit('join_requests_replaced', { roomId: message.data.roomId });
+        }
+        for (const request of message.data.requests || []) {
+          this.handleJoinRequest(request);
+        }
+        break;
+      case 'join_requests_expired':
+        this.handleJoinRequestsExpired(message.data);
+        break;
       case 'join_approved':
         this.handleJoinApproved(message.data);
         break;
@@ -129,6 +145,9 @@ class SimpleVideoCallService {
       case 'user_joined':
         this.handleUserJoined(message.data);
         break;
+      case 'users_joined':
+        this.handleUsersJoined(message.data);
+        break;
       case 'user_left':
         this.handleUserLeft(message.data);
         break;
@@ -342,6 +361,43 @@ class SimpleVideoCallService {
     this.emit('join_request_approved', { userId });
   }
 
+  // Approve many pending requests in one frame; the server sends one roster update for all of them
+  approveJoinRequests(userIds: string[]) {
+    if (!this.currentRoom || !this.isOwner()) {
+      throw new Error('Only room owner can approve join requests');
+    }
+    if (userIds.length === 0) return;
+
+    this.sendWebSocketMessage({
+      type: 'approve_join',
+      data: { roomId: this.currentRoom.id, userIds }
+    });
+
+    this.pendingJoinRequests = this.pendingJoinRequests.filter(
+      req => !userIds.includes(req.userId)
+    );
+
+    userIds.forEach(userId => this.emit('join_request_approved', { userId }));
+  }
+
+  rejectJoinRequests(userIds: string[]) {
+    if (!this.currentRoom || !this.isOwner()) {
+      throw new Error('Only room owner can reject join requests');
+    }
+    if (userIds.length === 0) return;
+
+    this.sendWebSocketMessage({
+      type: 'reject_join',
+      data: { roomId: this.currentRoom.id, userIds }
+    });
+
+    this.pendingJoinRequests = this.pendingJoinRequests.filter(
+      req => !userIds.includes(req.userId)
+    );
+
+    userIds.forEach(userId => this.emit('join_request_rejected', { userId }));
+  }
+
   rejectJoinRequest(requestId: string, userId: string) {
     if (!this.currentRoom || !this.isOwner()) {
       throw new Error('Only room owner can reject join requests');
@@ -506,6 +562,15 @@ class SimpleVideoCallService {
     }
   }
 
+  // Requests the owner didn't answer in time; the server has already rejected them
+  private handleJoinRequestsExpired(data: any) {
+    const userIds: string[] = data.userIds || [];
+    this.pendingJoinRequests = this.pendingJoinRequests.filter(
+      req => !userIds.includes(req.userId)
+    );
+    this.emit('join_requests_expired', { userIds });
+  }
+
   private async handleJoinApproved(data: any) {
     // User was approved to join, now get media and setup peer connections
     try {
@@ -547,10 +612,11 @@ class SimpleVideoCallService {
       };
       this.currentRoom.participants.push(selfParticipant);
 
-      this.localStream = await navigator.mediaDevices.getUserMedia({
+      this.localStreamPromise = navigator.mediaDevices.getUserMedia({
         video: true,
         audio: true
       });
+      this.localStream = await this.localStreamPromise;
 
       // Pre-create peer connections for existing participants
       // They will send us offers which we'll handle in handleOffer
@@ -571,10 +637,34 @@ class SimpleVideoCallService {
 
   private handleJoinRejected(data: any) {
     this.emit('join_rejected', data);
-  } private async handleUserJoined(data: any) {
+  }
+
+  // One roster update for a batch of approvals. Skip ourselves and anyone we already know about:
+  // users approved before us in the batch were in our existingParticipants and will send us offers.
+  private async handleUsersJoined(data: any) {
+    if (!this.currentRoom) return;
+    const currentUserId = this.getCurrentUserId();
+    const newUsers = (data.users || []).filter((user: any) =>
+      user.userId !== currentUserId && !this.currentRoom?.participants.some(p => p.id === user.userId)
+    );
+    for (const user of newUsers) {
+      await this.handleUserJoined({ ...user, roomId: data.roomId });
+    }
+  }
+
+  private async handleUserJoined(data: any) {
     if (this.currentRoom) {
       const currentUserId = this.getCurrentUserId();
 
+      // Just approved ourselves: the offer needs our local tracks
+      if (!this.localStream && this.localStreamPromise) {
+        try {
+          await this.localStreamPromise;
+        } catch (error) {
+          // handleJoinApproved reports the media error
+        }
+      }
+
       // If this is about us joining, we already handled this in handleJoinApproved
       if (data.userId === currentUserId) {
         console.log('SimpleVideoCallService: Ignoring user_joined for self (already handled in join_approved)');
@@ -0,0 +1,82 @@
+package com.mini_project.p2p_chat.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+
+// Default broker JSON (Jackson, ISO LocalDateTime, full field names) vs the compact codec for
+// one /topic/group/* payload: a single message or a coalesced batch. Setup prints the
+// encoded size of both, which is the bytes-per-message saving on every subscriber's socket.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMessageCodecBenchmark {
+
+    @Param({"1", "20"})
+    public int batchSize;
+
+    private MappingJackson2MessageConverter jsonConverter;
+    private CompactChatMessageConverter compactConverter;
+    private Object payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same setup the broker uses for its default JSON converter
+        jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+        compactConverter = new CompactChatMessageConverter();
+
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setSeq(1000L + i);
+            message.setGroupId(42L);
+            message.setSenderId("member-" + (i % 7) + "@example.com");
+            message.setSenderName("Member " + (i % 7));
+            message.setContent("Hey everyone, the deploy finished and the dashboards look fine.");
+            message.setTimestamp(LocalDateTime.now());
+            message.setClientMessageId(UUID.randomUUID().toString());
+            messages.add(message);
+        }
+        payload = batchSize == 1 ? messages.get(0) : messages;
+
+        int jsonBytes = ((byte[]) json().getPayload()).length;
+        int compactBytes = compact().length;
+        System.out.printf("%n%d message(s): default JSON %d bytes (%.1f/msg), compact %d bytes (%.1f/msg), %.1f%% smaller%n",
+                batchSize, jsonBytes, jsonBytes / (double) batchSize, compactBytes, compactBytes / (double) batchSize,
+                100.0 * (jsonBytes - compactBytes) / jsonBytes);
+    }
+
+    @Benchmark
+    public Message<?> json() {
+        return jsonConverter.toMessage(payload, null);
+    }
+
+    @Benchmark
+    public byte[] compact() {
+        return compactConverter.encode(payload);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mini_project.p2p_chat.controller;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mini_project.p2p_chat.P2pChatApplication;
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import com.mini_project.p2p_chat.group_chat.Service.GroupService;
+import com.mini_project.p2p_chat.group_chat.model.ChatGroup;
+
+// ChatController.sendMessage against the real Spring context: membership check through
+// GroupService on the embedded H2 database, then publish to the simple broker
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatSendBenchmark {
+
+    @Param({"10", "1000"})
+    public int members;
+
+    private ConfigurableApplicationContext context;
+    private ChatController chatController;
+    private Long groupId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        context = new SpringApplicationBuilder(P2pChatApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        chatController = context.getBean(ChatController.class);
+        GroupService groupService = context.getBean(GroupService.class);
+
+        ChatGroup group = groupService.createGroup("bench", "member-0");
+        groupId = group.getGroupId();
+        for (int i = 1; i < members; i++) {
+            groupService.joinGroup(group.getToken(), "member-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ChatMessage sendMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setGroupId(groupId);
+        message.setSenderId("member-0");
+        message.setSenderName("Member 0");
+        message.setContent("Hey everyone, the deploy finished and the dashboards look fine.");
+        chatController.sendMessage(message);
+        return message;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMembershipIndex;
+
+// Presence broadcast to every online session and room broadcast to every participant
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int sessions;
+
+    private SignalingHandler handler;
+    private StubWebSocketSession owner;
+    private ObjectNode mediaToggle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        handler = new SignalingHandler(new GroupMembershipIndex());
+        owner = new StubWebSocketSession("session-0");
+        handler.registerOnlineUser("user-0", "User 0", owner);
+        handler.handleTextMessage(owner, new TextMessage(
+                "{\"type\":\"create_room\",\"data\":{\"roomId\":\"room-1\",\"roomName\":\"All hands\","
+                        + "\"ownerId\":\"user-0\",\"ownerName\":\"User 0\"}}"));
+
+        for (int i = 1; i < sessions; i++) {
+            String userId = "user-" + i;
+            handler.registerOnlineUser(userId, "User " + i, new StubWebSocketSession("session-" + i));
+            handler.addRoomParticipant("room-1", userId, "User " + i);
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        mediaToggle = handler.createMessage("media_toggle", mapper.createObjectNode()
+                .put("roomId", "room-1")
+                .put("userId", "user-0")
+                .put("mediaType", "audio")
+                .put("enabled", true));
+    }
+
+    @Benchmark
+    public long broadcastOnlineUsers() throws Exception {
+        handler.broadcastOnlineUsers();
+        return owner.framesSent;
+    }
+
+    @Benchmark
+    public long broadcastToRoom() throws Exception {
+        handler.broadcastToRoom("room-1", mediaToggle, null);
+        return owner.framesSent;
+    }
+}
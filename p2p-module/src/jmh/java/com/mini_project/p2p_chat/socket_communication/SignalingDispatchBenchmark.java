@@ -0,0 +1,106 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import com.mini_project.p2p_chat.group_chat.Service.GroupMembershipIndex;
+
+// handleTextMessage end to end (parse, dispatch, forward) for each signaling message type.
+// alice owns room-1 and bob is the other party. Room frames change the room, so those types
+// put it back before every invocation (outside the measurement, via the handler's own frames);
+// their scores carry JMH's per-invocation timing overhead and compare best with each other.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SignalingDispatchBenchmark {
+
+    @Param({"user_online", "connection_request", "connection_accepted", "offer", "answer",
+            "ice_candidate", "connection_rejected", "toggle_media", "logout_notification",
+            "create_room", "request_join", "approve_join", "reject_join", "remove_participant",
+            "leave_room"})
+    public String type;
+
+    private SignalingHandler handler;
+    private StubWebSocketSession caller;
+    private StubWebSocketSession callee;
+    private StubWebSocketSession sender;
+    private TextMessage frame;
+
+    private static final TextMessage BOB_REQUESTS_JOIN =
+            new TextMessage(SignalingPayloads.frame("request_join", "bob", "alice"));
+    private static final TextMessage BOB_LEAVES =
+            new TextMessage(SignalingPayloads.frame("leave_room", "bob", "alice"));
+    private static final TextMessage ALICE_REJECTS_BOB =
+            new TextMessage(SignalingPayloads.frame("reject_join", "alice", "bob"));
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // The handler logs every frame to stdout; keep the cost of building those strings
+        // in the measurement but don't flood the JMH output with them
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        handler = new SignalingHandler(new GroupMembershipIndex());
+        caller = new StubWebSocketSession("session-alice");
+        callee = new StubWebSocketSession("session-bob");
+        handler.registerOnlineUser("alice", "Alice", caller);
+        handler.registerOnlineUser("bob", "Bob", callee);
+
+        handler.handleTextMessage(caller, new TextMessage(
+                "{\"type\":\"create_room\",\"data\":{\"roomId\":\"room-1\",\"roomName\":\"Standup\","
+                        + "\"ownerId\":\"alice\",\"ownerName\":\"Alice\"}}"));
+        handler.addRoomParticipant("room-1", "bob", "Bob");
+
+        // request_join and leave_room come from bob; everything else from alice
+        boolean fromBob = type.equals("request_join") || type.equals("leave_room");
+        sender = fromBob ? callee : caller;
+        frame = new TextMessage(fromBob
+                ? SignalingPayloads.frame(type, "bob", "alice")
+                : SignalingPayloads.frame(type, "alice", "bob"));
+    }
+
+    // The room state each room frame needs: bob waiting for an answer, or bob in the room
+    @Setup(Level.Invocation)
+    public void resetRoom() throws Exception {
+        switch (type) {
+            case "request_join":
+                handler.handleTextMessage(callee, BOB_LEAVES);
+                handler.handleTextMessage(caller, ALICE_REJECTS_BOB);
+                break;
+            case "approve_join":
+            case "reject_join":
+                handler.handleTextMessage(callee, BOB_LEAVES);
+                handler.handleTextMessage(callee, BOB_REQUESTS_JOIN);
+                break;
+            case "remove_participant":
+            case "leave_room":
+                handler.addRoomParticipant("room-1", "bob", "Bob");
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Benchmark
+    public long handleTextMessage() throws Exception {
+        handler.handleTextMessage(sender, frame);
+        return caller.framesSent + callee.framesSent;
+    }
+}
@@ -0,0 +1,117 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+// Representative signaling frames, shaped like what the Next.js client sends
+final class SignalingPayloads {
+
+    static final String SDP_OFFER = String.join("\\r\\n",
+            "v=0",
+            "o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+            "s=-",
+            "t=0 0",
+            "a=group:BUNDLE 0 1 2",
+            "a=extmap-allow-mixed",
+            "a=msid-semantic: WMS 3f1c2a7e-5d1b-4b8e-9f0a-2c6d8e4b1a90",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xq3L",
+            "a=ice-pwd:9vQm2hHk7Zc1pR8sT4wY6uBn",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 5B:0A:9C:31:7E:44:D2:8F:13:A6:B9:60:2C:E7:4D:18:93:F5:0E:6A:C1:72:BD:29:84:3F:D6:0B:E9:55:A3:17",
+            "a=setup:actpass",
+            "a=mid:0",
+            "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=sendrecv",
+            "a=msid:3f1c2a7e-5d1b-4b8e-9f0a-2c6d8e4b1a90 8b2f6c1d-7a3e-4f59-b0c4-1e9d5a7f3c26",
+            "a=rtcp-mux",
+            "a=rtpmap:111 opus/48000/2",
+            "a=rtcp-fb:111 transport-cc",
+            "a=fmtp:111 minptime=10;useinbandfec=1",
+            "a=rtpmap:63 red/48000/2",
+            "a=fmtp:63 111/111",
+            "a=rtpmap:9 G722/8000",
+            "a=rtpmap:0 PCMU/8000",
+            "a=rtpmap:8 PCMA/8000",
+            "a=ssrc:2941651218 cname:Jd9wPq0sLk3vB7nX",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xq3L",
+            "a=ice-pwd:9vQm2hHk7Zc1pR8sT4wY6uBn",
+            "a=ice-options:trickle",
+            "a=setup:actpass",
+            "a=mid:1",
+            "a=sendrecv",
+            "a=rtcp-mux",
+            "a=rtcp-rsize",
+            "a=rtpmap:96 VP8/90000",
+            "a=rtcp-fb:96 goog-remb",
+            "a=rtcp-fb:96 transport-cc",
+            "a=rtcp-fb:96 ccm fir",
+            "a=rtcp-fb:96 nack",
+            "a=rtcp-fb:96 nack pli",
+            "a=rtpmap:97 rtx/90000",
+            "a=fmtp:97 apt=96",
+            "a=rtpmap:102 H264/90000",
+            "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+            "a=ssrc-group:FID 1776240513 3356542811",
+            "a=ssrc:1776240513 cname:Jd9wPq0sLk3vB7nX",
+            "m=application 9 UDP/DTLS/SCTP webrtc-datachannel",
+            "c=IN IP4 0.0.0.0",
+            "a=mid:2",
+            "a=sctp-port:5000",
+            "a=max-message-size:262144",
+            "");
+
+    static final String ICE_CANDIDATE =
+            "candidate:842163049 1 udp 1677729535 203.0.113.17 61764 typ srflx raddr 192.168.1.23 rport 61764 generation 0 ufrag Xq3L network-id 1 network-cost 10";
+
+    static String frame(String type, String from, String to) {
+        switch (type) {
+            case "user_online":
+                return "{\"type\":\"user_online\",\"userId\":\"" + from + "\",\"userName\":\"User " + from + "\"}";
+            case "connection_request":
+                return "{\"type\":\"connection_request\",\"fromUserId\":\"" + from + "\",\"fromUserName\":\"User " + from
+                        + "\",\"toUserId\":\"" + to + "\"}";
+            case "connection_accepted":
+                return "{\"type\":\"connection_accepted\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to + "\"}";
+            case "offer":
+                return "{\"type\":\"offer\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to
+                        + "\",\"offer\":{\"type\":\"offer\",\"sdp\":\"" + SDP_OFFER + "\"}}";
+            case "answer":
+                return "{\"type\":\"answer\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to
+                        + "\",\"answer\":{\"type\":\"answer\",\"sdp\":\"" + SDP_OFFER.replace("a=setup:actpass", "a=setup:active") + "\"}}";
+            case "ice_candidate":
+                return "{\"type\":\"ice_candidate\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to
+                        + "\",\"candidate\":{\"candidate\":\"" + ICE_CANDIDATE + "\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}";
+            case "connection_rejected":
+                return "{\"type\":\"connection_rejected\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to + "\"}";
+            case "toggle_media":
+                return "{\"type\":\"toggle_media\",\"data\":{\"roomId\":\"room-1\",\"userId\":\"" + from
+                        + "\",\"mediaType\":\"video\",\"enabled\":false}}";
+            case "logout_notification":
+                return "{\"type\":\"logout_notification\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to + "\"}";
+            case "create_room":
+                return "{\"type\":\"create_room\",\"data\":{\"roomId\":\"room-2\",\"roomName\":\"Retro\",\"ownerId\":\"" + from
+                        + "\",\"ownerName\":\"User " + from + "\"}}";
+            // Sent by the user who wants in (from), to the owner's room
+            case "request_join":
+                return "{\"type\":\"request_join\",\"data\":{\"roomId\":\"room-1\",\"userId\":\"" + from
+                        + "\",\"userName\":\"User " + from + "\"}}";
+            // Sent by the owner (from) about another user (to)
+            case "approve_join":
+            case "reject_join":
+            case "remove_participant":
+                return "{\"type\":\"" + type + "\",\"data\":{\"roomId\":\"room-1\",\"userId\":\"" + to + "\"}}";
+            case "leave_room":
+                return "{\"type\":\"leave_room\",\"data\":{\"roomId\":\"room-1\",\"userId\":\"" + from + "\"}}";
+            default:
+                throw new IllegalArgumentException("No sample frame for " + type);
+        }
+    }
+
+    private SignalingPayloads() {
+    }
+}
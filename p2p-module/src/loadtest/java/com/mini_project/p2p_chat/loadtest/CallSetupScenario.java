@@ -0,0 +1,156 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Clients are paired into caller/callee and repeat the full call setup on /ws/p2p:
+// connection_request -> connection_accepted -> offer -> answer -> trickled ICE both ways.
+// Every forwarded frame carries the sender's nanoTime, so latency is per hop end to end.
+final class CallSetupScenario implements Scenario {
+
+    private static final int ICE_CANDIDATES = 3;
+
+    static final String SDP = "v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\ns=-\\r\\nt=0 0\\r\\n"
+            + "a=group:BUNDLE 0 1\\r\\nm=audio 9 UDP/TLS/RTP/SAVPF 111\\r\\nc=IN IP4 0.0.0.0\\r\\n"
+            + "a=ice-ufrag:Xq3L\\r\\na=ice-pwd:9vQm2hHk7Zc1pR8sT4wY6uBn\\r\\na=setup:actpass\\r\\na=mid:0\\r\\n"
+            + "a=rtpmap:111 opus/48000/2\\r\\na=fmtp:111 minptime=10;useinbandfec=1\\r\\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97\\r\\na=mid:1\\r\\na=rtpmap:96 VP8/90000\\r\\n"
+            + "a=rtcp-fb:96 nack pli\\r\\na=rtpmap:97 rtx/90000\\r\\na=fmtp:97 apt=96\\r\\n";
+
+    static final String CANDIDATE =
+            "candidate:842163049 1 udp 1677729535 203.0.113.17 61764 typ srflx raddr 192.168.1.23 rport 61764 generation 0";
+
+    @Override
+    public String name() {
+        return "call";
+    }
+
+    @Override
+    public Map<String, Object> run(LoadContext ctx) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicLong calls = new AtomicLong();
+        long start = LoadContext.now();
+        long deadline = start + ctx.durationMs * 1_000_000L;
+        int pairs = Math.max(1, ctx.clients / 2);
+
+        List<LoadContext.ClientScript> scripts = new ArrayList<>(pairs * 2);
+        for (int p = 0; p < pairs; p++) {
+            String caller = "caller-" + p;
+            String callee = "callee-" + p;
+            CountDownLatch bothOnline = new CountDownLatch(2);
+
+            scripts.add(() -> {
+                LatencyRecorder.Buffer latencies = recorder.newBuffer();
+                WsClient client = goOnline(ctx, recorder, caller, bothOnline);
+                try {
+                    while (LoadContext.now() < deadline) {
+                        send(client, recorder, "connection_request", caller, callee, "");
+                        if (!expect(ctx, client, recorder, latencies, "connection_accepted")) continue;
+
+                        send(client, recorder, "offer", caller, callee, ",\"offer\":{\"type\":\"offer\",\"sdp\":\"" + SDP + "\"}");
+                        if (!expect(ctx, client, recorder, latencies, "answer")) continue;
+
+                        for (int k = 0; k < ICE_CANDIDATES; k++) {
+                            send(client, recorder, "ice_candidate", caller, callee, candidate(k));
+                        }
+                        for (int k = 0; k < ICE_CANDIDATES; k++) {
+                            expect(ctx, client, recorder, latencies, "ice_candidate");
+                        }
+                        calls.incrementAndGet();
+                    }
+                } finally {
+                    client.close();
+                }
+            });
+
+            scripts.add(() -> {
+                LatencyRecorder.Buffer latencies = recorder.newBuffer();
+                WsClient client = goOnline(ctx, recorder, callee, bothOnline);
+                try {
+                    long remaining;
+                    while ((remaining = deadline - LoadContext.now()) > 0) {
+                        String frame = client.poll(remaining / 1_000_000 + 1);
+                        if (frame == null) continue;
+                        recorder.received.incrementAndGet();
+                        if (frame.startsWith("{\"type\":\"online_users\"")) continue;
+
+                        JsonNode node = ctx.mapper.readTree(frame);
+                        recordLatency(node, latencies);
+                        switch (node.path("type").asText()) {
+                            case "connection_request":
+                                send(client, recorder, "connection_accepted", callee, caller, "");
+                                break;
+                            case "offer":
+                                send(client, recorder, "answer", callee, caller,
+                                        ",\"answer\":{\"type\":\"answer\",\"sdp\":\"" + SDP.replace("actpass", "active") + "\"}");
+                                for (int k = 0; k < ICE_CANDIDATES; k++) {
+                                    send(client, recorder, "ice_candidate", callee, caller, candidate(k));
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                } finally {
+                    client.close();
+                }
+            });
+        }
+
+        ctx.runClients(scripts, recorder);
+        Map<String, Object> result = recorder.summarize(name(), pairs * 2, LoadContext.now() - start);
+        result.put("callsCompleted", calls.get());
+        return result;
+    }
+
+    static WsClient goOnline(LoadContext ctx, LatencyRecorder recorder, String userId, CountDownLatch ready) throws Exception {
+        WsClient client = WsClient.connect(ctx.http, ctx.ws("/ws/p2p"));
+        client.send("{\"type\":\"user_online\",\"userId\":\"" + userId + "\",\"userName\":\"" + userId + "\"}");
+        recorder.sent.incrementAndGet();
+        String needle = "\"id\":\"" + userId + "\"";
+        client.await(frame -> {
+            recorder.received.incrementAndGet();
+            return frame.contains(needle);
+        }, 60_000, null);
+        ready.countDown();
+        ready.await(60, TimeUnit.SECONDS);
+        return client;
+    }
+
+    private static boolean expect(LoadContext ctx, WsClient client, LatencyRecorder recorder,
+                                  LatencyRecorder.Buffer latencies, String type) throws Exception {
+        String prefix = "\"type\":\"" + type + "\"";
+        String frame = client.await(f -> {
+            recorder.received.incrementAndGet();
+            return f.contains(prefix) && !f.startsWith("{\"type\":\"online_users\"");
+        }, 10_000, null);
+        if (frame == null) {
+            recorder.errors.incrementAndGet();
+            return false;
+        }
+        recordLatency(ctx.mapper.readTree(frame), latencies);
+        return true;
+    }
+
+    private static void send(WsClient client, LatencyRecorder recorder, String type, String from, String to, String extra) {
+        client.send("{\"type\":\"" + type + "\",\"fromUserId\":\"" + from + "\",\"toUserId\":\"" + to
+                + "\",\"sentAt\":" + LoadContext.now() + extra + "}");
+        recorder.sent.incrementAndGet();
+    }
+
+    private static String candidate(int k) {
+        return ",\"candidate\":{\"candidate\":\"" + CANDIDATE + "\",\"sdpMid\":\"" + (k % 2) + "\",\"sdpMLineIndex\":" + (k % 2) + "}";
+    }
+
+    static void recordLatency(JsonNode node, LatencyRecorder.Buffer latencies) {
+        long sentAt = node.path("sentAt").asLong(0);
+        if (sentAt == 0) sentAt = node.path("data").path("sentAt").asLong(0);
+        if (sentAt != 0) latencies.record(LoadContext.now() - sentAt);
+    }
+}
@@ -0,0 +1,139 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Group chat over STOMP: members create/join groups through the REST API, subscribe to
+// /topic/group/{id} on the raw WebSocket transport of the /ws/group SockJS endpoint and
+// keep sending. The send time travels in the message content.
+final class ChattyGroupScenario implements Scenario {
+
+    private static final String SENT_AT = "sentAt=";
+
+    @Override
+    public String name() {
+        return "groups";
+    }
+
+    @Override
+    public Map<String, Object> run(LoadContext ctx) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start = LoadContext.now();
+        long deadline = start + ctx.durationMs * 1_000_000L;
+        int groupSize = Math.max(2, ctx.groupSize);
+        int groups = Math.max(1, ctx.clients / groupSize);
+
+        List<LoadContext.ClientScript> scripts = new ArrayList<>(groups * groupSize);
+        for (int g = 0; g < groups; g++) {
+            CompletableFuture<JsonNode> created = new CompletableFuture<>();
+            CountDownLatch subscribed = new CountDownLatch(groupSize);
+
+            for (int m = 0; m < groupSize; m++) {
+                String userId = "group-" + g + "-" + m + "@load.test";
+                boolean creator = m == 0;
+                String groupName = "load-group-" + g;
+                scripts.add(() -> {
+                    LatencyRecorder.Buffer latencies = recorder.newBuffer();
+                    JsonNode group;
+                    try {
+                        if (creator) {
+                            created.complete(post(ctx, "/api/groups/create?name=" + URLEncoder.encode(groupName, StandardCharsets.UTF_8), userId));
+                        }
+                        group = created.get(60, TimeUnit.SECONDS);
+                        if (!creator) {
+                            post(ctx, "/api/groups/join/" + group.path("inviteLink").asText(), userId);
+                        }
+                    } catch (Exception e) {
+                        created.completeExceptionally(e);
+                        subscribed.countDown();
+                        throw e;
+                    }
+                    String groupId = group.path("groupId").asText();
+
+                    WsClient client = WsClient.connect(ctx.http, ctx.ws("/ws/group/websocket"));
+                    try {
+                        client.send("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n\n\u0000");
+                        client.await(f -> f.startsWith("CONNECTED"), 10_000, null);
+                        client.send("SUBSCRIBE\nid:sub-0\ndestination:/topic/group/" + groupId + "\nreceipt:subscribed\n\n\u0000");
+                        client.await(f -> f.startsWith("RECEIPT"), 10_000, null);
+                        subscribed.countDown();
+                        subscribed.await(60, TimeUnit.SECONDS);
+
+                        long nextSend = LoadContext.now();
+                        long remaining;
+                        while ((remaining = deadline - LoadContext.now()) > 0) {
+                            long now = LoadContext.now();
+                            if (now >= nextSend) {
+                                String body = "{\"groupId\":" + groupId + ",\"senderId\":\"" + userId + "\",\"senderName\":\""
+                                        + userId + "\",\"content\":\"" + SENT_AT + now + ";hello from " + userId + "\"}";
+                                client.send("SEND\ndestination:/app/chat/send\ncontent-type:application/json\n\n" + body + "\u0000");
+                                recorder.sent.incrementAndGet();
+                                nextSend = now + ctx.sendIntervalMs * 1_000_000L;
+                            }
+
+                            long waitMs = Math.max(1, Math.min(remaining, nextSend - LoadContext.now()) / 1_000_000);
+                            String frame = client.poll(waitMs);
+                            if (frame == null || !frame.startsWith("MESSAGE")) continue;
+                            recorder.received.incrementAndGet();
+                            recordFrame(ctx, frame, latencies);
+                        }
+                    } finally {
+                        client.close();
+                    }
+                });
+            }
+        }
+
+        ctx.runClients(scripts, recorder);
+        Map<String, Object> result = recorder.summarize(name(), groups * groupSize, LoadContext.now() - start);
+        result.put("groups", groups);
+        result.put("groupSize", groupSize);
+        return result;
+    }
+
+    private static JsonNode post(LoadContext ctx, String path, String userId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ctx.httpBase + path))
+                .header("X-User-Id", userId)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = ctx.http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return ctx.mapper.readTree(response.body());
+    }
+
+    // A MESSAGE body is one ChatMessage, or an array of them when frames are coalesced
+    private static void recordFrame(LoadContext ctx, String frame, LatencyRecorder.Buffer latencies) throws Exception {
+        int bodyStart = frame.indexOf("\n\n");
+        if (bodyStart < 0) return;
+        int bodyEnd = frame.lastIndexOf('\u0000');
+        String body = frame.substring(bodyStart + 2, bodyEnd > bodyStart ? bodyEnd : frame.length());
+
+        JsonNode node = ctx.mapper.readTree(body);
+        if (node.isArray()) {
+            for (JsonNode message : node) recordMessage(message, latencies);
+        } else {
+            recordMessage(node, latencies);
+        }
+    }
+
+    private static void recordMessage(JsonNode message, LatencyRecorder.Buffer latencies) {
+        String content = message.path("content").asText();
+        if (!content.startsWith(SENT_AT)) return;
+        int end = content.indexOf(';');
+        if (end < 0) return;
+        latencies.record(LoadContext.now() - Long.parseLong(content.substring(SENT_AT.length(), end)));
+    }
+}
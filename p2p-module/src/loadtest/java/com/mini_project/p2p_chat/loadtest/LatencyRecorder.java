@@ -0,0 +1,70 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Collects end-to-end latencies in nanoseconds. Each client records into its own Buffer
+// so the hot path is uncontended; buffers are merged once at the end of the run.
+final class LatencyRecorder {
+
+    final class Buffer {
+        private long[] values = new long[256];
+        private int size;
+
+        void record(long nanos) {
+            if (nanos < 0) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    final AtomicLong sent = new AtomicLong();
+    final AtomicLong received = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+
+    Buffer newBuffer() {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    Map<String, Object> summarize(String scenario, int clients, long elapsedNanos) {
+        int total = 0;
+        for (Buffer b : buffers) total += b.size;
+        long[] all = new long[total];
+        int pos = 0;
+        for (Buffer b : buffers) {
+            System.arraycopy(b.values, 0, all, pos, b.size);
+            pos += b.size;
+        }
+        Arrays.sort(all);
+
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("clients", clients);
+        result.put("durationMs", elapsedNanos / 1_000_000);
+        result.put("framesSent", sent.get());
+        result.put("framesReceived", received.get());
+        result.put("sentPerSec", sent.get() / seconds);
+        result.put("receivedPerSec", received.get() / seconds);
+        result.put("errors", errors.get());
+        result.put("samples", all.length);
+        result.put("latencyMs", Map.of(
+                "p50", percentile(all, 0.50),
+                "p99", percentile(all, 0.99),
+                "p999", percentile(all, 0.999),
+                "max", all.length == 0 ? 0.0 : all[all.length - 1] / 1e6));
+        return result;
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Shared settings and plumbing handed to every scenario
+final class LoadContext {
+
+    final String httpBase;    // http://host:port
+    final String wsBase;      // ws://host:port
+    final int clients;
+    final long durationMs;
+    final int roomSize;
+    final int groupSize;
+    final long sendIntervalMs;
+    final HttpClient http;
+    final ObjectMapper mapper = new ObjectMapper();
+
+    LoadContext(String httpBase, int clients, long durationMs, int roomSize, int groupSize, long sendIntervalMs) {
+        this.httpBase = httpBase;
+        this.wsBase = httpBase.replaceFirst("^http", "ws");
+        this.clients = clients;
+        this.durationMs = durationMs;
+        this.roomSize = roomSize;
+        this.groupSize = groupSize;
+        this.sendIntervalMs = sendIntervalMs;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    URI ws(String path) {
+        return URI.create(wsBase + path);
+    }
+
+    // Runs one virtual thread per client script and waits for all of them
+    void runClients(List<ClientScript> scripts, LatencyRecorder recorder) throws InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(scripts.size());
+            for (ClientScript script : scripts) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        script.run();
+                    } catch (Exception e) {
+                        recorder.errors.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ignored) {
+                    // counted above
+                }
+            }
+        }
+    }
+
+    static long now() {
+        return System.nanoTime();
+    }
+
+    interface ClientScript {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mini_project.p2p_chat.P2pChatApplication;
+
+// Load driver for the signaling and group chat endpoints.
+//
+//   mvn -Pload-test test-compile exec:exec@load -Dload.args="--scenario=all --clients=10000 --duration=60"
+//
+// Options (all optional):
+//   --scenario=presence|call|rooms|groups|all   default all
+//   --clients=N            concurrent clients per scenario, default 1000
+//   --duration=S           seconds per scenario, default 30
+//   --room-size=N          participants per video room, default 8
+//   --group-size=N         members per chat group, default 50
+//   --interval-ms=N        per-client send interval for rooms/groups, default 500
+//   --target=http://h:p    run against an existing server instead of an embedded one
+//   --report=PATH          JSON report location, default target/load-report.json
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        PrintStream console = System.out;
+
+        String target = options.get("target");
+        ConfigurableApplicationContext server = null;
+        if (target == null) {
+            // The server logs every frame to stdout; at this scale that is all we would measure
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            server = new SpringApplicationBuilder(P2pChatApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN",
+                            "spring.threads.virtual.enabled=true",
+                            "server.tomcat.max-connections=200000",
+                            "server.tomcat.accept-count=10000")
+                    .run();
+            target = "http://localhost:" + server.getEnvironment().getProperty("local.server.port");
+        }
+
+        LoadContext ctx = new LoadContext(
+                target,
+                Integer.parseInt(options.getOrDefault("clients", "1000")),
+                Long.parseLong(options.getOrDefault("duration", "30")) * 1000,
+                Integer.parseInt(options.getOrDefault("room-size", "8")),
+                Integer.parseInt(options.getOrDefault("group-size", "50")),
+                Long.parseLong(options.getOrDefault("interval-ms", "500")));
+
+        List<Scenario> scenarios = select(options.getOrDefault("scenario", "all"));
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            for (Scenario scenario : scenarios) {
+                console.println("Running " + scenario.name() + " with " + ctx.clients + " clients for " + ctx.durationMs / 1000 + "s");
+                Map<String, Object> result = scenario.run(ctx);
+                results.add(result);
+                console.println("  " + result);
+            }
+        } finally {
+            if (server != null) server.close();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("target", options.getOrDefault("target", "embedded"));
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("results", results);
+
+        Path reportPath = Paths.get(options.getOrDefault("report", "target/load-report.json"));
+        if (reportPath.getParent() != null) Files.createDirectories(reportPath.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+        console.println("Report written to " + reportPath.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private static List<Scenario> select(String name) {
+        List<Scenario> all = List.of(new PresenceStormScenario(), new CallSetupScenario(),
+                new VideoRoomScenario(), new ChattyGroupScenario());
+        if ("all".equals(name)) return all;
+        for (Scenario scenario : all) {
+            if (scenario.name().equals(name)) return List.of(scenario);
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + name);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Every client connects to /ws/p2p and announces itself at once. Latency is the time from
+// sending user_online until the client sees itself in an online_users broadcast.
+final class PresenceStormScenario implements Scenario {
+
+    @Override
+    public String name() {
+        return "presence";
+    }
+
+    @Override
+    public Map<String, Object> run(LoadContext ctx) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start = LoadContext.now();
+        long deadline = start + ctx.durationMs * 1_000_000L;
+
+        List<LoadContext.ClientScript> scripts = new ArrayList<>(ctx.clients);
+        for (int i = 0; i < ctx.clients; i++) {
+            String userId = "presence-" + i;
+            scripts.add(() -> {
+                LatencyRecorder.Buffer latencies = recorder.newBuffer();
+                WsClient client = WsClient.connect(ctx.http, ctx.ws("/ws/p2p"));
+                try {
+                    String needle = "\"id\":\"" + userId + "\"";
+                    long sentAt = LoadContext.now();
+                    client.send("{\"type\":\"user_online\",\"userId\":\"" + userId + "\",\"userName\":\"Presence " + userId + "\"}");
+                    recorder.sent.incrementAndGet();
+
+                    String seen = client.await(frame -> {
+                        recorder.received.incrementAndGet();
+                        return frame.contains(needle);
+                    }, ctx.durationMs, null);
+                    if (seen == null) {
+                        recorder.errors.incrementAndGet();
+                    } else {
+                        latencies.record(LoadContext.now() - sentAt);
+                    }
+
+                    // Stay connected and absorb the rest of the storm
+                    long remaining;
+                    while ((remaining = deadline - LoadContext.now()) > 0) {
+                        if (client.poll(remaining / 1_000_000 + 1) != null) {
+                            recorder.received.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    client.close();
+                }
+            });
+        }
+
+        ctx.runClients(scripts, recorder);
+        return recorder.summarize(name(), ctx.clients, LoadContext.now() - start);
+    }
+}
@@ -0,0 +1,59 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMembershipIndex;
+import com.mini_project.p2p_chat.socket_communication.SignalingHandler;
+import com.mini_project.p2p_chat.socket_communication.SignalingJournal;
+import com.mini_project.p2p_chat.socket_communication.SignalingReplayer;
+
+// Replays a capture journal (signaling.capture.enabled=true) into a fresh SignalingHandler.
+//
+//   mvn -Pload-test test-compile exec:exec@replay -Dreplay.args="--journal=data/signaling-capture/x.journal --speed=0"
+//
+//   --journal=PATH   journal to replay (required)
+//   --speed=X        1 = recorded pacing, 10 = ten times faster, 0 = as fast as possible (default)
+//   --repeat=N       replay N times, each into a new handler, default 1
+public class ReplayDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (!options.containsKey("journal")) {
+            System.err.println("--journal=PATH is required");
+            System.exit(2);
+        }
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Path journal = Paths.get(options.get("journal"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "0"));
+        int repeat = Integer.parseInt(options.getOrDefault("repeat", "1"));
+        List<SignalingJournal.Record> records = SignalingJournal.read(journal);
+
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (int i = 0; i < repeat; i++) {
+            SignalingHandler handler = new SignalingHandler(new GroupMembershipIndex());
+            runs.add(new SignalingReplayer(handler, speed).replay(records));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("journal", journal.toString());
+        report.put("speed", speed);
+        report.put("runs", runs);
+        console.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+    }
+}
@@ -0,0 +1,11 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.util.Map;
+
+interface Scenario {
+
+    String name();
+
+    // Returns the summary produced by LatencyRecorder.summarize
+    Map<String, Object> run(LoadContext context) throws Exception;
+}
@@ -0,0 +1,121 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// N-person video rooms: the owner creates the room and approves each announced batch of join
+// requests, then all participants keep toggling media. Reports join latency (request_join ->
+// join_approved) and media_toggle fan-out latency separately.
+final class VideoRoomScenario implements Scenario {
+
+    @Override
+    public String name() {
+        return "rooms";
+    }
+
+    @Override
+    public Map<String, Object> run(LoadContext ctx) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        LatencyRecorder joins = new LatencyRecorder();
+        long start = LoadContext.now();
+        long deadline = start + ctx.durationMs * 1_000_000L;
+        int roomSize = Math.max(2, ctx.roomSize);
+        int rooms = Math.max(1, ctx.clients / roomSize);
+
+        List<LoadContext.ClientScript> scripts = new ArrayList<>(rooms * roomSize);
+        for (int r = 0; r < rooms; r++) {
+            String roomId = "load-room-" + r;
+            CountDownLatch everyoneOnline = new CountDownLatch(roomSize);
+            CountDownLatch roomCreated = new CountDownLatch(1);
+
+            for (int m = 0; m < roomSize; m++) {
+                String userId = "room-" + r + "-" + m;
+                boolean owner = m == 0;
+                scripts.add(() -> {
+                    LatencyRecorder.Buffer latencies = recorder.newBuffer();
+                    LatencyRecorder.Buffer joinLatencies = joins.newBuffer();
+                    WsClient client = CallSetupScenario.goOnline(ctx, recorder, userId, everyoneOnline);
+                    try {
+                        if (owner) {
+                            client.send("{\"type\":\"create_room\",\"data\":{\"roomId\":\"" + roomId + "\",\"roomName\":\"Load "
+                                    + roomId + "\",\"ownerId\":\"" + userId + "\",\"ownerName\":\"" + userId + "\"}}");
+                            recorder.sent.incrementAndGet();
+                            client.await(f -> f.contains("\"room_created\""), 10_000, null);
+                            roomCreated.countDown();
+                        } else {
+                            roomCreated.await(30, TimeUnit.SECONDS);
+                            long requestedAt = LoadContext.now();
+                            client.send("{\"type\":\"request_join\",\"data\":{\"roomId\":\"" + roomId + "\",\"userId\":\""
+                                    + userId + "\",\"userName\":\"" + userId + "\"}}");
+                            recorder.sent.incrementAndGet();
+                            String approved = client.await(f -> {
+                                recorder.received.incrementAndGet();
+                                return f.contains("\"join_approved\"");
+                            }, 30_000, null);
+                            if (approved == null) {
+                                recorder.errors.incrementAndGet();
+                                return;
+                            }
+                            joinLatencies.record(LoadContext.now() - requestedAt);
+                        }
+
+                        long nextToggle = LoadContext.now();
+                        boolean enabled = true;
+                        long remaining;
+                        while ((remaining = deadline - LoadContext.now()) > 0) {
+                            long now = LoadContext.now();
+                            if (now >= nextToggle) {
+                                enabled = !enabled;
+                                client.send("{\"type\":\"toggle_media\",\"data\":{\"roomId\":\"" + roomId + "\",\"userId\":\""
+                                        + userId + "\",\"mediaType\":\"video\",\"enabled\":" + enabled + ",\"sentAt\":" + now + "}}");
+                                recorder.sent.incrementAndGet();
+                                nextToggle = now + ctx.sendIntervalMs * 1_000_000L;
+                            }
+
+                            long waitMs = Math.max(1, Math.min(remaining, nextToggle - LoadContext.now()) / 1_000_000);
+                            String frame = client.poll(waitMs);
+                            if (frame == null) continue;
+                            recorder.received.incrementAndGet();
+                            if (frame.startsWith("{\"type\":\"online_users\"")) continue;
+
+                            JsonNode node = ctx.mapper.readTree(frame);
+                            String type = node.path("type").asText();
+                            if ("media_toggle".equals(type)) {
+                                CallSetupScenario.recordLatency(node, latencies);
+                            } else if (owner && ("join_request".equals(type) || "join_requests".equals(type))) {
+                                // One approve_join per announced batch, like an owner pressing "Approve all"
+                                ArrayNode userIds = ctx.mapper.createArrayNode();
+                                if (node.path("data").has("requests")) {
+                                    node.path("data").path("requests").forEach(req -> userIds.add(req.path("userId").asText()));
+                                } else {
+                                    userIds.add(node.path("data").path("userId").asText());
+                                }
+                                ObjectNode approve = ctx.mapper.createObjectNode().put("type", "approve_join");
+                                approve.putObject("data").put("roomId", roomId).set("userIds", userIds);
+                                client.send(approve.toString());
+                                recorder.sent.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        client.close();
+                    }
+                });
+            }
+        }
+
+        ctx.runClients(scripts, recorder);
+        long elapsed = LoadContext.now() - start;
+        Map<String, Object> result = recorder.summarize(name(), rooms * roomSize, elapsed);
+        result.put("rooms", rooms);
+        result.put("roomSize", roomSize);
+        result.put("joinLatencyMs", joins.summarize("join", rooms * roomSize, elapsed).get("latencyMs"));
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.mini_project.p2p_chat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Text WebSocket client meant to be driven from its own virtual thread: incoming frames
+// land in an inbox and the scenario script blocks on it.
+final class WsClient implements WebSocket.Listener {
+
+    private final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+    private final StringBuilder partial = new StringBuilder();
+    // java.net.http allows one outstanding send at a time; a ReentrantLock (unlike
+    // synchronized) does not pin the carrier thread while we wait on it
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private WebSocket socket;
+
+    static WsClient connect(HttpClient http, URI uri) throws Exception {
+        WsClient client = new WsClient();
+        client.socket = http.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .buildAsync(uri, client)
+                .get(30, TimeUnit.SECONDS);
+        return client;
+    }
+
+    void send(String text) {
+        sendLock.lock();
+        try {
+            socket.sendText(text, true).join();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    String poll(long timeoutMs) throws InterruptedException {
+        return inbox.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Waits for the first frame matching the predicate, handing everything else to "other"
+    String await(Predicate<String> match, long timeoutMs, Consumer<String> other) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return null;
+            String frame = inbox.poll(remaining, TimeUnit.NANOSECONDS);
+            if (frame == null) return null;
+            if (match.test(frame)) return frame;
+            if (other != null) other.accept(frame);
+        }
+    }
+
+    void close() {
+        try {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            socket.abort();
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            inbox.add(partial.toString());
+            partial.setLength(0);
+        }
+        webSocket.request(1);
+        return null;
+    }
+}
@@ -0,0 +1,202 @@
+package com.mini_project.p2p_chat.config;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+// Work queue with two FIFO lanes: tasks matching the predicate (typing/read frames) only run
+// when no chat task is waiting. So they can't starve, one low-priority task still gets through
+// after every CHAT_BURST chat tasks taken while it waits. Unbounded, like the default queue of
+// the outbound channel's executor.
+class ChatFirstTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final int CHAT_BURST = 16;
+
+    private final Predicate<Runnable> lowPriority;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<Runnable> chat = new ArrayDeque<>();
+    private final ArrayDeque<Runnable> low = new ArrayDeque<>();
+    private int chatStreak;
+
+    ChatFirstTaskQueue(Predicate<Runnable> lowPriority) {
+        this.lowPriority = lowPriority;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        Objects.requireNonNull(task);
+        lock.lock();
+        try {
+            (lowPriority.test(task) ? low : chat).add(task);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) {
+        offer(task);
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Runnable task;
+            while ((task = dequeue()) == null) {
+                notEmpty.await();
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Runnable task;
+            while ((task = dequeue()) == null) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            return lowIsNext() ? low.peek() : chat.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return chat.size() + low.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        lock.lock();
+        try {
+            return chat.remove(task) || low.remove(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            Runnable task;
+            while (drained < maxElements && (task = dequeue()) != null) {
+                target.add(task);
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Snapshot in the order tasks would run (roughly: chat lane, then low lane)
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(chat.size() + low.size());
+            snapshot.addAll(chat);
+            snapshot.addAll(low);
+        } finally {
+            lock.unlock();
+        }
+        Iterator<Runnable> it = snapshot.iterator();
+        return new Iterator<>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                return last = it.next();
+            }
+
+            @Override
+            public void remove() {
+                ChatFirstTaskQueue.this.remove(last);
+            }
+        };
+    }
+
+    // Caller holds the lock
+    private boolean lowIsNext() {
+        return !low.isEmpty() && (chat.isEmpty() || chatStreak >= CHAT_BURST);
+    }
+
+    // Caller holds the lock
+    private Runnable dequeue() {
+        if (lowIsNext()) {
+            chatStreak = 0;
+            return low.poll();
+        }
+        Runnable task = chat.poll();
+        if (task != null && !low.isEmpty()) chatStreak++;
+        return task;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mini_project.p2p_chat.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mini_project.p2p_chat.group_chat.DTO.AttachmentRef;
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+
+// Short-key JSON for ChatMessage (and lists of them, for coalesced batches), selected by the
+// content-type header. Null fields are left out and timestamps are epoch millis:
+//   {"q":42,"g":12,"s":"a@x.com","n":"Alice","c":"hi","t":1718000000000,"k":"uuid",
+//    "a":{"i":"<sha256>","n":"photo.png","m":"image/png","z":48213}}
+public class CompactChatMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType COMPACT_JSON = MimeType.valueOf("application/vnd.p2pchat.compact+json");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public CompactChatMessageConverter() {
+        super(COMPACT_JSON);
+        // Only used when a sender asks for this content type explicitly
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ChatMessage.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        if (payload instanceof List<?> list) {
+            for (Object item : list) {
+                if (!(item instanceof ChatMessage)) return false;
+            }
+        }
+        return super.canConvertTo(payload, headers);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            if (payload instanceof List<?> list) {
+                generator.writeStartArray();
+                for (Object item : list) {
+                    write(generator, (ChatMessage) item);
+                }
+                generator.writeEndArray();
+            } else {
+                write(generator, (ChatMessage) payload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!ChatMessage.class.isAssignableFrom(targetClass)) return null;
+        try {
+            Object payload = message.getPayload();
+            JsonNode node = payload instanceof byte[] bytes ? objectMapper.readTree(bytes) : objectMapper.readTree(payload.toString());
+            return read(node);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void write(JsonGenerator generator, ChatMessage message) throws IOException {
+        generator.writeStartObject();
+        if (message.getSeq() != null) generator.writeNumberField("q", message.getSeq());
+        if (message.getGroupId() != null) generator.writeNumberField("g", message.getGroupId());
+        if (message.getSenderId() != null) generator.writeStringField("s", message.getSenderId());
+        if (message.getSenderName() != null) generator.writeStringField("n", message.getSenderName());
+        if (message.getContent() != null) generator.writeStringField("c", message.getContent());
+        if (message.getTimestamp() != null) {
+            generator.writeNumberField("t", message.getTimestamp().atZone(zone).toInstant().toEpochMilli());
+        }
+        if (message.getClientMessageId() != null) generator.writeStringField("k", message.getClientMessageId());
+
+        AttachmentRef attachment = message.getAttachment();
+        if (attachment != null) {
+            generator.writeObjectFieldStart("a");
+            generator.writeStringField("i", attachment.getId());
+            if (attachment.getName() != null) generator.writeStringField("n", attachment.getName());
+            if (attachment.getContentType() != null) generator.writeStringField("m", attachment.getContentType());
+            generator.writeNumberField("z", attachment.getSize());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private ChatMessage read(JsonNode node) {
+        ChatMessage message = new ChatMessage();
+        if (node.hasNonNull("q")) message.setSeq(node.get("q").asLong());
+        if (node.hasNonNull("g")) message.setGroupId(node.get("g").asLong());
+        if (node.hasNonNull("s")) message.setSenderId(node.get("s").asText());
+        if (node.hasNonNull("n")) message.setSenderName(node.get("n").asText());
+        if (node.hasNonNull("c")) message.setContent(node.get("c").asText());
+        if (node.hasNonNull("t")) {
+            message.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(node.get("t").asLong()), zone));
+        }
+        if (node.hasNonNull("k")) message.setClientMessageId(node.get("k").asText());
+
+        JsonNode a = node.get("a");
+        if (a != null && a.isObject()) {
+            message.setAttachment(new AttachmentRef(
+                    a.path("i").asText(null),
+                    a.hasNonNull("n") ? a.get("n").asText() : null,
+                    a.hasNonNull("m") ? a.get("m").asText() : null,
+                    a.path("z").asLong()));
+        }
+        return message;
+    }
+
+    // For measuring: encodes outside of a messaging context
+    public byte[] encode(Object payload) {
+        return (byte[]) convertToInternal(payload, null, null);
+    }
+}
@@ -0,0 +1,277 @@
+package com.mini_project.p2p_chat.config;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import com.mini_project.p2p_chat.socket_communication.SignalingHandler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Drain mode for rolling deploys. Once started, new /ws/p2p and /ws/group handshakes are
+// refused with 503 and open sessions are closed a few at a time with 1012 "reconnect elsewhere",
+// so clients reconnect to the other nodes spread out instead of all at once. Signaling sessions
+// of users in a running video room go last: the room is told the deadline (room_draining) and
+// gets until room-grace-ms to finish or move before its participants are disconnected.
+@Component
+public class DrainManager {
+
+    public static final CloseStatus RECONNECT_ELSEWHERE = CloseStatus.SERVICE_RESTARTED.withReason("reconnect elsewhere");
+
+    static final String P2P = "p2p";
+    static final String GROUP = "group";
+
+    private static final long TICK_MS = 100;
+
+    @Value("${drain.sessions-per-second:50}")
+    private double sessionsPerSecond;
+
+    @Value("${drain.room-grace-ms:300000}")
+    private long roomGraceMs;
+
+    @Value("${drain.on-shutdown:true}")
+    private boolean drainOnShutdown;
+
+    @Value("${drain.shutdown-timeout-ms:25000}")
+    private long shutdownTimeoutMs;
+
+    private final SignalingHandler signalingHandler;
+
+    private record Tracked(WebSocketSession session, String endpoint) {}
+
+    private final ConcurrentHashMap<String, Tracked> sessions = new ConcurrentHashMap<>();
+
+    private volatile boolean draining;
+    private volatile long startedAt;
+    private volatile long roomDeadline;
+    private volatile double rate;
+    private volatile int heldForRooms;
+    private double budget; // drain thread only
+    private ScheduledExecutorService drainer;
+    private ScheduledFuture<?> task;
+
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong rejectedHandshakes = new AtomicLong();
+
+    public DrainManager(SignalingHandler signalingHandler) {
+        this.signalingHandler = signalingHandler;
+    }
+
+    @PostConstruct
+    public void init() {
+        drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "websocket-drain");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        drainer.shutdownNow();
+    }
+
+    // Refuses new sessions while draining; the load balancer retries them on another node
+    HandshakeInterceptor handshakeInterceptor() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                if (!draining) return true;
+                rejectedHandshakes.incrementAndGet();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set("Retry-After", "1");
+                return false;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    // Keeps track of every open session on an endpoint so a drain can close them
+    WebSocketHandler track(WebSocketHandler handler, String endpoint) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), new Tracked(session, endpoint));
+                // A handshake that got past the interceptor just before the drain started
+                if (draining) startTicking();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // Starting again while draining changes the rate and can only bring the room deadline forward
+    public synchronized void start(double perSecond, long graceMs) {
+        rate = Math.max(0.1, perSecond);
+        if (draining) {
+            roomDeadline = Math.min(roomDeadline, System.currentTimeMillis() + graceMs);
+            return;
+        }
+
+        draining = true;
+        startedAt = System.currentTimeMillis();
+        roomDeadline = startedAt + graceMs;
+        budget = 0;
+        int rooms = signalingHandler.notifyRoomsDraining(roomDeadline);
+        System.out.println("Draining " + sessions.size() + " WebSocket sessions at " + rate + "/s, "
+                + rooms + " video rooms have until " + roomDeadline);
+        startTicking();
+    }
+
+    // Back to accepting sessions, e.g. when a deploy is rolled back; closed sessions stay closed
+    public synchronized void cancel() {
+        if (!draining) return;
+        draining = false;
+        stopTicking();
+        System.out.println("Drain cancelled, " + sessions.size() + " sessions still open");
+    }
+
+    private synchronized void startTicking() {
+        if (draining && task == null) {
+            task = drainer.scheduleAtFixedRate(this::tickQuietly, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void stopTicking() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public double getSessionsPerSecond() {
+        return sessionsPerSecond;
+    }
+
+    public long getRoomGraceMs() {
+        return roomGraceMs;
+    }
+
+    // Runs before the web server and the STOMP handler stop, which would otherwise drop every
+    // session at once. Rate and room grace are squeezed so the drain fits the shutdown window.
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        if (!drainOnShutdown || sessions.isEmpty()) return;
+
+        long half = Math.max(TICK_MS, shutdownTimeoutMs / 2);
+        start(Math.max(sessionsPerSecond, sessions.size() * 1000.0 / half), Math.min(roomGraceMs, half));
+
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        while (!sessions.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(TICK_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!sessions.isEmpty()) {
+            System.err.println("Shutdown drain timed out with " + sessions.size() + " sessions open");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> open = new TreeMap<>();
+        for (Tracked t : sessions.values()) {
+            open.merge(t.endpoint(), 1L, Long::sum);
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("draining", draining);
+        stats.put("openSessions", open);
+        stats.put("closed", closed.get());
+        stats.put("rejectedHandshakes", rejectedHandshakes.get());
+        if (draining) {
+            stats.put("startedAt", startedAt);
+            stats.put("sessionsPerSecond", rate);
+            stats.put("roomDeadline", roomDeadline);
+            stats.put("heldForRooms", heldForRooms);
+        }
+        return stats;
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (Exception e) {
+            System.err.println("Error draining sessions: " + e.getMessage());
+        }
+    }
+
+    private void tick() {
+        // Unused budget carries over, but never more than a second's worth
+        budget = Math.min(budget + rate * TICK_MS / 1000.0, Math.max(1, rate));
+        boolean roomsExpired = System.currentTimeMillis() >= roomDeadline;
+
+        int held = 0;
+        Iterator<Tracked> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            Tracked t = it.next();
+            if (!t.session().isOpen()) {
+                it.remove();
+                continue;
+            }
+            if (!roomsExpired && P2P.equals(t.endpoint()) && signalingHandler.isInActiveRoom(t.session().getId())) {
+                held++;
+                continue;
+            }
+            if (budget < 1) continue;
+
+            it.remove();
+            budget -= 1;
+            try {
+                t.session().close(RECONNECT_ELSEWHERE);
+                closed.incrementAndGet();
+            } catch (IOException e) {
+                System.err.println("Error closing session " + t.session().getId() + ": " + e.getMessage());
+            }
+        }
+        heldForRooms = held;
+
+        stopTickingIfIdle();
+    }
+
+    // Nothing left to close, and handshakes are refused while draining, so stop waking up. Checked
+    // under the lock so a session tracked meanwhile restarts the ticks instead of being missed.
+    private synchronized void stopTickingIfIdle() {
+        if (sessions.isEmpty() && task != null) {
+            stopTicking();
+            System.out.println("Drain finished, " + closed.get() + " sessions closed");
+        }
+    }
+}
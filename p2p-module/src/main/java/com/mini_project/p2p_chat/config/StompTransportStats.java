@@ -0,0 +1,89 @@
+package com.mini_project.p2p_chat.config;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+// Which transport each STOMP client came in on: "websocket" for the native endpoint, or
+// "sockjs-<transport>" (sockjs-websocket, sockjs-xhr_streaming, sockjs-xhr, ...) for /ws/group
+@Component
+public class StompTransportStats {
+
+    static final String TRANSPORT_ATTRIBUTE = "stompTransport";
+
+    private final ConcurrentHashMap<String, String> sessionTransports = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> active = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> total = new ConcurrentHashMap<>();
+
+    // Tags the session with its transport at handshake time
+    HandshakeInterceptor interceptor(boolean sockJs) {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                String transport = "websocket";
+                if (sockJs) {
+                    // SockJS transport URLs end in /{server-id}/{session-id}/{transport}
+                    String path = request.getURI().getPath();
+                    transport = "sockjs-" + path.substring(path.lastIndexOf('/') + 1);
+                }
+                attributes.put(TRANSPORT_ATTRIBUTE, transport);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null) {
+            // CONNECTED carries the original CONNECT message as a header; attributes live there
+            Object connect = accessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+            if (connect instanceof Message<?> connectMessage) {
+                attributes = SimpMessageHeaderAccessor.getSessionAttributes(connectMessage.getHeaders());
+            }
+        }
+        String transport = attributes == null ? null : (String) attributes.get(TRANSPORT_ATTRIBUTE);
+        if (transport == null) transport = "unknown";
+
+        if (accessor.getSessionId() != null && sessionTransports.putIfAbsent(accessor.getSessionId(), transport) == null) {
+            active.computeIfAbsent(transport, t -> new AtomicLong()).incrementAndGet();
+            total.computeIfAbsent(transport, t -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    // May be published more than once per session
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String transport = sessionTransports.remove(event.getSessionId());
+        if (transport != null) {
+            active.get(transport).decrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> activeByTransport = new TreeMap<>();
+        active.forEach((transport, count) -> activeByTransport.put(transport, count.get()));
+        Map<String, Long> totalByTransport = new TreeMap<>();
+        total.forEach((transport, count) -> totalByTransport.put(transport, count.get()));
+        return Map.of("active", activeByTransport, "totalConnects", totalByTransport);
+    }
+}
@@ -1,20 +1,71 @@
 package com.mini_project.p2p_chat.config;
 
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import com.mini_project.p2p_chat.group_chat.Service.EphemeralSignalDispatcher;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${stomp.heartbeat.server-ms:10000}")
+    private long serverHeartbeatMs;
+
+    @Value("${stomp.heartbeat.client-ms:10000}")
+    private long clientHeartbeatMs;
+
+    @Value("${stomp.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${stomp.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${stomp.transport.send-time-limit-ms:15000}")
+    private int sendTimeLimitMs;
+
+    @Value("${stomp.transport.time-to-first-message-ms:60000}")
+    private int timeToFirstMessageMs;
+
+    @Autowired
+    private StompTransportStats transportStats;
+
+    @Autowired
+    private DrainManager drainManager;
+
+    private TaskScheduler heartbeatScheduler;
+
+    // The broker's own scheduler; lazy because it is created by the configuration we are part of
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler) {
+        this.heartbeatScheduler = heartbeatScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple memory-based message broker to carry the messages back to the client
         // on destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic");
+        // Heartbeats: {how often we send, how often we expect the client to send}; 0 disables
+        config.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[]{serverHeartbeatMs, clientHeartbeatMs})
+                .setTaskScheduler(heartbeatScheduler);
         
         // Designate the "/app" prefix for messages that are bound to methods
         // annotated with @MessageMapping
@@ -25,6 +76,51 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Enable SockJS fallback options so that alternate transports can be used
         registry.addEndpoint("/ws/group")
                 .setAllowedOriginPatterns("*") // Allow all origins for development
+                .addInterceptors(transportStats.interceptor(true), drainManager.handshakeInterceptor())
                 .withSockJS();
+
+        // Plain WebSocket endpoint without SockJS framing, for clients that can use it directly
+        registry.addEndpoint("/ws/group-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(transportStats.interceptor(false), drainManager.handshakeInterceptor());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)          // largest inbound STOMP message
+                .setSendBufferSizeLimit(sendBufferSizeLimit)        // outbound bytes buffered per slow client
+                .setSendTimeLimit(sendTimeLimitMs)                  // longest a single send may block
+                .setTimeToFirstMessage(timeToFirstMessageMs)        // close sockets that never send CONNECT
+                .addDecoratorFactory(handler -> drainManager.track(handler, DrainManager.GROUP));
+    }
+
+    // Same sizing as Spring's default outbound executor, but typing/read frames
+    // (/topic/group/{id}/ephemeral) wait behind queued chat frames for the sending threads
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                return new ChatFirstTaskQueue(StompWebSocketConfig::isEphemeralFrame);
+            }
+        };
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("clientOutboundChannel-");
+        registration.taskExecutor(executor);
+    }
+
+    private static boolean isEphemeralFrame(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable handling)) return false;
+        String destination = SimpMessageHeaderAccessor.getDestination(handling.getMessage().getHeaders());
+        return destination != null && destination.endsWith(EphemeralSignalDispatcher.TOPIC_SUFFIX);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Short-key JSON for /topic/group/{id}/c subscribers; only used when that content type is asked for
+        messageConverters.add(new CompactChatMessageConverter());
+        // Keep the default converters (Jackson etc.) for everything else
+        return true;
     }
 }
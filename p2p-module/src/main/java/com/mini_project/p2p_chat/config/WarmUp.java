@@ -0,0 +1,259 @@
+package com.mini_project.p2p_chat.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mini_project.p2p_chat.controller.ChatController;
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import com.mini_project.p2p_chat.group_chat.DTO.EphemeralSignal;
+import com.mini_project.p2p_chat.group_chat.Service.GroupService;
+import com.mini_project.p2p_chat.group_chat.model.ChatGroup;
+import com.mini_project.p2p_chat.socket_communication.ReplaySession;
+import com.mini_project.p2p_chat.socket_communication.SignalingHandler;
+
+// Pushes synthetic traffic through the real signaling, chat and group code paths before the node
+// reports ready, so the first real users don't pay for a cold JIT, uninitialized Jackson
+// serializers and unprepared repository queries. Ready listeners run before the readiness state
+// flips to ACCEPTING_TRAFFIC, which is what GET /api/admin/ready reports. Runs until
+// warmup.iterations or warmup.max-ms, whichever comes first, and removes everything it created.
+@Component
+public class WarmUp {
+
+    private static final String SAMPLE_SDP = String.join("\r\n",
+            "v=0",
+            "o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+            "s=-",
+            "t=0 0",
+            "a=group:BUNDLE 0 1",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111",
+            "c=IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xq3L",
+            "a=ice-pwd:9vQm2hHk7Zc1pR8sT4wY6uBn",
+            "a=setup:actpass",
+            "a=mid:0",
+            "a=rtpmap:111 opus/48000/2",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96",
+            "c=IN IP4 0.0.0.0",
+            "a=mid:1",
+            "a=rtpmap:96 VP8/90000",
+            "");
+
+    private static final String SAMPLE_CANDIDATE =
+            "candidate:842163049 1 udp 1677729535 203.0.113.17 61764 typ srflx raddr 192.168.1.23 rport 61764 generation 0";
+
+    private static final int MESSAGES_PER_ITERATION = 5;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.max-ms:10000}")
+    private long maxMs;
+
+    @Value("${warmup.iterations:200}")
+    private int iterations;
+
+    @Autowired
+    private SignalingHandler signalingHandler;
+
+    @Autowired
+    private ChatController chatController;
+
+    @Autowired
+    private GroupService groupService;
+
+    // The MVC converter's mapper, so REST response serializers are warm too
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Map<String, Object> report = Map.of("state", "pending");
+
+    // After GroupService.loadIndexes, so the membership index is in its serving state
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void run(ApplicationReadyEvent event) {
+        long startupMs = event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis();
+        long jvmUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (!enabled) {
+            report = Map.of("state", "disabled", "startupMs", startupMs, "jvmUptimeMs", jvmUptimeMs);
+            return;
+        }
+
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        String userA = "warmup-" + runId + "-a";
+        String userB = "warmup-" + runId + "-b";
+        long started = System.nanoTime();
+        long deadline = started + maxMs * 1_000_000L;
+
+        int done = 0;
+        int errors = 0;
+        long firstIterationMicros = -1;
+        long lastIterationMicros = -1;
+        ChatGroup group = null;
+        try {
+            group = groupService.createGroup("warmup-" + runId, userA);
+            groupService.joinGroup(group.getToken(), userB);
+
+            while (done < iterations && System.nanoTime() < deadline) {
+                long iterationStart = System.nanoTime();
+                try {
+                    signaling(runId, done, userA, userB);
+                    chat(group, userA, userB);
+                } catch (Exception e) {
+                    // One stack trace is enough to diagnose; the rest are only counted
+                    if (errors++ == 0) {
+                        System.err.println("Warm-up iteration " + done + " failed: " + e);
+                        e.printStackTrace();
+                    }
+                }
+                lastIterationMicros = (System.nanoTime() - iterationStart) / 1000;
+                if (firstIterationMicros < 0) firstIterationMicros = lastIterationMicros;
+                done++;
+            }
+        } catch (Exception e) {
+            errors++;
+            System.err.println("Warm-up aborted: " + e);
+            e.printStackTrace();
+        } finally {
+            if (group != null) {
+                groupService.leaveGroupById(group.getGroupId(), userB);
+                groupService.leaveGroupById(group.getGroupId(), userA);
+            }
+        }
+
+        long warmupMs = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> result = new HashMap<>();
+        result.put("state", "done");
+        result.put("startupMs", startupMs);
+        result.put("jvmUptimeMs", jvmUptimeMs);
+        result.put("warmupMs", warmupMs);
+        result.put("iterations", done);
+        result.put("timedOut", done < iterations);
+        result.put("errors", errors);
+        result.put("firstIterationMicros", firstIterationMicros);
+        result.put("lastIterationMicros", lastIterationMicros);
+        report = result;
+
+        System.out.println("Started in " + startupMs + " ms (JVM up " + jvmUptimeMs + " ms), warm-up ran "
+                + done + " iterations in " + warmupMs + " ms: first " + firstIterationMicros
+                + " us, last " + lastIterationMicros + " us, " + errors + " errors");
+    }
+
+    public Map<String, Object> getReport() {
+        return report;
+    }
+
+    // Two users come online, set up a call and a video room, then disconnect. Their sessions are
+    // quiet: real clients never see them in online_users and the user search never indexes them.
+    private void signaling(String runId, int iteration, String userA, String userB) throws Exception {
+        ReplaySession a = new ReplaySession("warmup-" + runId + "-" + iteration + "-a");
+        ReplaySession b = new ReplaySession("warmup-" + runId + "-" + iteration + "-b");
+        a.getAttributes().put(SignalingHandler.QUIET_SESSION, true);
+        b.getAttributes().put(SignalingHandler.QUIET_SESSION, true);
+        signalingHandler.afterConnectionEstablished(a);
+        signalingHandler.afterConnectionEstablished(b);
+        try {
+            send(a, frame("user_online").put("userId", userA).put("userName", "Warm-up A"));
+            send(b, frame("user_online").put("userId", userB).put("userName", "Warm-up B"));
+
+            send(a, direct("connection_request", userA, userB).put("fromUserName", "Warm-up A"));
+            send(b, direct("connection_accepted", userB, userA));
+            ObjectNode offer = direct("offer", userA, userB);
+            offer.putObject("offer").put("type", "offer").put("sdp", SAMPLE_SDP);
+            send(a, offer);
+            ObjectNode answer = direct("answer", userB, userA);
+            answer.putObject("answer").put("type", "answer").put("sdp", SAMPLE_SDP.replace("actpass", "active"));
+            send(b, answer);
+            for (int i = 0; i < 3; i++) {
+                ObjectNode candidate = direct("ice_candidate", i % 2 == 0 ? userA : userB, i % 2 == 0 ? userB : userA);
+                candidate.putObject("candidate").put("candidate", SAMPLE_CANDIDATE).put("sdpMid", "0").put("sdpMLineIndex", 0);
+                send(i % 2 == 0 ? a : b, candidate);
+            }
+
+            String roomId = "warmup-" + runId + "-room-" + iteration;
+            send(a, room("create_room", roomData(roomId, userA)
+                    .put("roomName", "Warm-up").put("ownerId", userA).put("ownerName", "Warm-up A")));
+            send(b, room("request_join", roomData(roomId, userB).put("userName", "Warm-up B")));
+            send(a, room("approve_join", roomData(roomId, userB)));
+            send(b, room("toggle_media", roomData(roomId, userB).put("mediaType", "video").put("enabled", false)));
+            send(b, room("leave_room", roomData(roomId, userB)));
+            send(a, room("leave_room", roomData(roomId, userA)));
+        } finally {
+            a.close();
+            b.close();
+            signalingHandler.afterConnectionClosed(a, CloseStatus.NORMAL);
+            signalingHandler.afterConnectionClosed(b, CloseStatus.NORMAL);
+        }
+    }
+
+    // Messages, typing and read receipts through the STOMP controller, plus the group lookups
+    private void chat(ChatGroup group, String userA, String userB) throws Exception {
+        long lastSeq = 0;
+        ChatMessage last = null;
+        for (int i = 0; i < MESSAGES_PER_ITERATION; i++) {
+            String sender = i % 2 == 0 ? userA : userB;
+            ChatMessage message = new ChatMessage();
+            message.setGroupId(group.getGroupId());
+            message.setSenderId(sender);
+            message.setSenderName(sender.endsWith("-a") ? "Warm-up A" : "Warm-up B");
+            message.setContent("warm-up message " + i + " for the group chat path");
+            message.setClientMessageId(UUID.randomUUID().toString());
+            chatController.sendMessage(message);
+            if (message.getSeq() != null) lastSeq = message.getSeq();
+            last = message;
+        }
+
+        EphemeralSignal signal = new EphemeralSignal();
+        signal.setGroupId(group.getGroupId());
+        signal.setUserId(userB);
+        signal.setTyping(true);
+        chatController.typing(signal);
+        signal.setTyping(false);
+        signal.setLastReadSeq(lastSeq);
+        chatController.read(signal);
+
+        groupService.getGroupByToken(group.getToken());
+        groupService.isUserInGroup(group.getGroupId(), userB);
+
+        // Shapes the REST endpoints return: the group itself and pages of messages
+        objectMapper.writeValueAsBytes(group);
+        objectMapper.writeValueAsBytes(List.of(last));
+    }
+
+    private void send(ReplaySession session, ObjectNode frame) throws Exception {
+        signalingHandler.handleTextMessage(session, new TextMessage(frame.toString()));
+    }
+
+    private ObjectNode frame(String type) {
+        return objectMapper.createObjectNode().put("type", type);
+    }
+
+    private ObjectNode direct(String type, String from, String to) {
+        return frame(type).put("fromUserId", from).put("toUserId", to);
+    }
+
+    // Video room frames carry their fields under "data"
+    private ObjectNode room(String type, ObjectNode data) {
+        ObjectNode frame = frame(type);
+        frame.set("data", data);
+        return frame;
+    }
+
+    private ObjectNode roomData(String roomId, String userId) {
+        return objectMapper.createObjectNode().put("roomId", roomId).put("userId", userId);
+    }
+}
@@ -1,23 +1,90 @@
 package com.mini_project.p2p_chat.config;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
+import com.mini_project.p2p_chat.socket_communication.SignalingCaptureHandler;
 import com.mini_project.p2p_chat.socket_communication.SignalingHandler;
+import com.mini_project.p2p_chat.socket_communication.SignalingJournal;
+
+import jakarta.annotation.PreDestroy;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final SignalingHandler signalingHandler;
+    private final DrainManager drainManager;
+
+    @Value("${signaling.capture.enabled:false}")
+    private boolean captureEnabled;
+
+    @Value("${signaling.capture.dir:data/signaling-capture}")
+    private String captureDir;
+
+    @Value("${signaling.capture.max-bytes:1073741824}")
+    private long captureMaxBytes;
+
+    private SignalingJournal.Writer captureJournal;
+    private ScheduledExecutorService captureFlusher;
 
-    public WebSocketConfig(SignalingHandler signalingHandler) {
+    public WebSocketConfig(SignalingHandler signalingHandler, DrainManager drainManager) {
         this.signalingHandler = signalingHandler;
+        this.drainManager = drainManager;
     }    @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(signalingHandler, "/ws/p2p")
+        registry.addHandler(drainManager.track(signalingHandlerWithCapture(), DrainManager.P2P), "/ws/p2p")
+                .addInterceptors(drainManager.handshakeInterceptor())
                 .setAllowedOrigins("*"); // allow all origins for now
     }
+
+    // Optionally journal all inbound signaling traffic for later replay (see SignalingReplayer)
+    private WebSocketHandler signalingHandlerWithCapture() {
+        if (!captureEnabled) {
+            return signalingHandler;
+        }
+        try {
+            captureJournal = new SignalingJournal.Writer(
+                    Paths.get(captureDir, "signaling-" + System.currentTimeMillis() + ".journal"), captureMaxBytes);
+        } catch (IOException e) {
+            System.err.println("Signaling capture disabled, could not open journal: " + e.getMessage());
+            return signalingHandler;
+        }
+
+        captureFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "signaling-capture-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        captureFlusher.scheduleWithFixedDelay(() -> {
+            try {
+                captureJournal.flush();
+            } catch (IOException e) {
+                System.err.println("Error flushing signaling capture: " + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+
+        System.out.println("Capturing signaling traffic to " + captureDir);
+        return new SignalingCaptureHandler(signalingHandler, captureJournal);
+    }
+
+    @PreDestroy
+    public void closeCapture() throws IOException {
+        if (captureFlusher != null) {
+            captureFlusher.shutdown();
+        }
+        if (captureJournal != null) {
+            captureJournal.close();
+        }
+    }
 }
\ No newline at end of file
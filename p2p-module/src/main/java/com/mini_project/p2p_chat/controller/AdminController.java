@@ -0,0 +1,94 @@
+package com.mini_project.p2p_chat.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mini_project.p2p_chat.config.DrainManager;
+import com.mini_project.p2p_chat.config.WarmUp;
+
+// Operational endpoints for deploy tooling. Starting or cancelling a drain needs the X-Admin-Token
+// header matching admin.token. With no token configured both are refused: behind a reverse proxy
+// every request arrives from the proxy's address, so "localhost only" would let anyone through.
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final DrainManager drainManager;
+    private final WarmUp warmUp;
+    private final ApplicationAvailability availability;
+
+    @Value("${admin.token:}")
+    private String adminToken;
+
+    public AdminController(DrainManager drainManager, WarmUp warmUp, ApplicationAvailability availability) {
+        this.drainManager = drainManager;
+        this.warmUp = warmUp;
+        this.availability = availability;
+    }
+
+    // GET /api/admin/ready -- readiness probe: 503 until startup and warm-up are done, and again while draining
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> getReadiness() {
+        boolean ready = availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC && !drainManager.isDraining();
+        Map<String, Object> body = new HashMap<>();
+        body.put("ready", ready);
+        body.put("draining", drainManager.isDraining());
+        body.put("warmUp", warmUp.getReport());
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+
+    // POST /api/admin/drain?rate=100&roomGraceMs=60000 -- stop taking WebSocket sessions and close the open ones
+    @PostMapping("/drain")
+    public ResponseEntity<Map<String, Object>> startDrain(
+            @RequestParam(required = false) Double rate,
+            @RequestParam(required = false) Long roomGraceMs,
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        drainManager.start(rate != null ? rate : drainManager.getSessionsPerSecond(),
+                roomGraceMs != null ? roomGraceMs : drainManager.getRoomGraceMs());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(drainManager.getStats());
+    }
+
+    // DELETE /api/admin/drain -- accept sessions again
+    @DeleteMapping("/drain")
+    public ResponseEntity<Map<String, Object>> cancelDrain(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        drainManager.cancel();
+        return ResponseEntity.ok(drainManager.getStats());
+    }
+
+    // GET /api/admin/drain -- progress: open sessions per endpoint, closed so far, sessions held for video rooms
+    @GetMapping("/drain")
+    public Map<String, Object> getDrainStatus() {
+        return drainManager.getStats();
+    }
+
+    private boolean authorized(String token) {
+        if (adminToken == null || adminToken.isBlank()) {
+            System.err.println("Refused admin request: admin.token is not set");
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,11 +1,16 @@
 package com.mini_project.p2p_chat.controller;
 
 import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import com.mini_project.p2p_chat.group_chat.DTO.EphemeralSignal;
+import com.mini_project.p2p_chat.group_chat.Service.AttachmentService;
+import com.mini_project.p2p_chat.group_chat.Service.EphemeralSignalDispatcher;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMessageDispatcher;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMessageLog;
+import com.mini_project.p2p_chat.group_chat.Service.GroupSearchIndex;
 import com.mini_project.p2p_chat.group_chat.Service.GroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.time.LocalDateTime;
@@ -14,23 +19,48 @@ import java.time.LocalDateTime;
 public class ChatController {
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private GroupMessageDispatcher messageDispatcher;
     
     @Autowired
     private GroupService groupService;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private GroupMessageLog messageLog;
+
+    @Autowired
+    private GroupSearchIndex searchIndex;
+
+    @Autowired
+    private EphemeralSignalDispatcher ephemeralDispatcher;
       @MessageMapping("/chat/send")
     public void sendMessage(@Payload ChatMessage message) {
         try {
             // Set timestamp when message is received by server
             message.setTimestamp(LocalDateTime.now());
             
+            // Attachments are uploaded first; the message may only reference one uploaded to this group
+            if (message.getAttachment() != null
+                    && !attachmentService.isAvailableTo(message.getAttachment().getId(), message.getGroupId())) {
+                System.err.println("Unknown attachment " + message.getAttachment().getId() +
+                                 " in message from " + message.getSenderId());
+                return;
+            }
+
             // Verify that the sender is a member of the group
             if (groupService.isUserInGroup(message.getGroupId(), message.getSenderId())) {
-                // Send message to all subscribers of the group topic
-                String destination = "/topic/group/" + message.getGroupId();
-                messagingTemplate.convertAndSend(destination, message);
+                // Number the message and send it to all subscribers of the group topic
+                if (!messageLog.append(message, messageDispatcher::publish)) {
+                    System.out.println("Dropped retry of message " + message.getClientMessageId() +
+                                     " from " + message.getSenderId());
+                    return;
+                }
+                // Only queued here; the index picks it up in the background
+                searchIndex.enqueue(message);
                 
-                System.out.println("Message sent to group " + message.getGroupId() + 
+                System.out.println("Message " + message.getSeq() + " sent to group " + message.getGroupId() + 
                                  " from " + message.getSenderId() + ": " + message.getContent() +
                                  " at " + message.getTimestamp());
             } else {
@@ -42,4 +72,17 @@ public class ChatController {
             e.printStackTrace();
         }
     }
+
+    // Typing indicators and read receipts: no persistence, no ChatMessage, coalesced per window
+    @MessageMapping("/chat/typing")
+    public void typing(@Payload EphemeralSignal signal) {
+        ephemeralDispatcher.typing(signal.getGroupId(), signal.getUserId(), signal.isTyping());
+    }
+
+    @MessageMapping("/chat/read")
+    public void read(@Payload EphemeralSignal signal) {
+        if (signal.getLastReadSeq() != null) {
+            ephemeralDispatcher.read(signal.getGroupId(), signal.getUserId(), signal.getLastReadSeq());
+        }
+    }
 }
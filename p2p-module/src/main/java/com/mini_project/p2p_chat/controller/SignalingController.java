@@ -1,26 +1,105 @@
 package com.mini_project.p2p_chat.controller;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.mini_project.p2p_chat.socket_communication.OnlineUserIndex;
 import com.mini_project.p2p_chat.socket_communication.SignalingHandler;
 
-import java.util.Set;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class SignalingController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final long MAX_WAIT_MS = 30_000;
+
     private final SignalingHandler signalingHandler;
 
     public SignalingController(SignalingHandler signalingHandler) {
         this.signalingHandler = signalingHandler;
     }
 
+    // GET /api/online-users?q=prefix&cursor=...&limit=50
+    // The ETag is the index version, so an unchanged population answers 304 without a body
     @GetMapping("/online-users")
-    public Set<String> getOnlineUsers() {
-        return signalingHandler.getOnlineUserIds();
+    public ResponseEntity<OnlineUserIndex.Page> getOnlineUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        OnlineUserIndex index = signalingHandler.getOnlineUserIndex();
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String currentTag = etagFor(index.getVersion());
+        if (currentTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentTag).build();
+        }
+
+        OnlineUserIndex.Page page = index.search(q, cursor, pageSize);
+        return ResponseEntity.ok().eTag(etagFor(page.version)).body(page);
+    }
+
+    // GET /api/online-users/changes?since=42&waitMs=25000
+    // Long-poll: answers right away if the index is already past "since", otherwise
+    // parks the request until the next presence change or the wait runs out
+    @GetMapping("/online-users/changes")
+    public DeferredResult<Map<String, Object>> getOnlineUserChanges(
+            @RequestParam long since,
+            @RequestParam(defaultValue = "25000") long waitMs) {
+        OnlineUserIndex index = signalingHandler.getOnlineUserIndex();
+        long timeout = Math.max(0, Math.min(waitMs, MAX_WAIT_MS));
+
+        DeferredResult<Map<String, Object>> result = new DeferredResult<>(timeout);
+        result.onTimeout(() -> result.setResult(changesResponse(index, since)));
+
+        CompletableFuture<Long> change = index.awaitChangeAfter(since);
+        if (change.isDone() || timeout == 0) {
+            result.setResult(changesResponse(index, since));
+        } else {
+            change.thenRun(() -> result.setResult(changesResponse(index, since)));
+        }
+        return result;
     }
-}
 
+    // GET /api/relay/stats -- active server-relayed data channels and bytes forwarded
+    @GetMapping("/relay/stats")
+    public Map<String, Object> getRelayStats() {
+        return signalingHandler.getRelayManager().getStats();
+    }
+
+    // GET /api/mailbox/stats -- signaling frames held for briefly offline users
+    @GetMapping("/mailbox/stats")
+    public Map<String, Object> getMailboxStats() {
+        return signalingHandler.getMailbox().getStats();
+    }
+
+    private Map<String, Object> changesResponse(OnlineUserIndex index, long since) {
+        Map<String, Object> response = new HashMap<>();
+        List<OnlineUserIndex.Change> changes = index.changesSince(since);
+        if (changes == null) {
+            // Too far behind the change log; the client should reload the full list
+            response.put("reset", true);
+            response.put("version", index.getVersion());
+        } else {
+            response.put("reset", false);
+            response.put("version", changes.isEmpty() ? Math.min(since, index.getVersion()) : changes.get(changes.size() - 1).version);
+            response.put("changes", changes);
+        }
+        return response;
+    }
+
+    private static String etagFor(long version) {
+        return "\"" + version + "\"";
+    }
+}
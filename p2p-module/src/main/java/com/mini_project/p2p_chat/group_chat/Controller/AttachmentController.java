@@ -0,0 +1,188 @@
+package com.mini_project.p2p_chat.group_chat.Controller;
+
+import com.mini_project.p2p_chat.group_chat.DTO.AttachmentRef;
+import com.mini_project.p2p_chat.group_chat.Service.AttachmentService;
+import com.mini_project.p2p_chat.group_chat.Service.GroupService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/groups")
+public class AttachmentController {
+
+    // Tomcat's sendfile hand-off: when supported, the connector streams the file itself
+    // with FileChannel.transferTo once the response headers are written
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Media a browser may render in place. Anything else (HTML, SVG, scripts...) is served as an
+    // octet-stream download so an uploaded file can never run on this origin.
+    private static final Set<String> INLINE_TYPES = Set.of(
+            "image/png", "image/jpeg", "image/gif", "image/webp",
+            "audio/mpeg", "audio/ogg", "audio/wav", "audio/webm",
+            "video/mp4", "video/ogg", "video/webm");
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private GroupService groupService;
+
+    // Raw request body is the file; ?name= is the original file name
+    @PostMapping("/{groupId}/attachments")
+    public ResponseEntity<?> upload(@PathVariable Long groupId,
+                                    @RequestParam(required = false) String name,
+                                    @RequestHeader("X-User-Id") String userId,
+                                    HttpServletRequest request) throws IOException {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not a member of this group"));
+        }
+        if (request.getContentLengthLong() > attachmentService.getMaxBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "Attachment too large"));
+        }
+
+        Optional<AttachmentRef> stored = attachmentService.store(groupId, request.getInputStream(), name, request.getContentType());
+        if (stored.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "Attachment too large"));
+        }
+        return ResponseEntity.ok(stored.get());
+    }
+
+    // Supports single byte ranges (Range / If-Range) so media can be seeked and downloads resumed
+    @GetMapping("/{groupId}/attachments/{id}")
+    public void download(@PathVariable Long groupId,
+                         @PathVariable String id,
+                         @RequestParam(required = false) String name,
+                         @RequestHeader("X-User-Id") String userId,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        // Same answer for other groups' files as for unknown ones
+        Path file = attachmentService.isAvailableTo(id, groupId) ? attachmentService.resolve(id) : null;
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Content-addressed, so the id is a strong validator and the bytes never change
+        String etag = "\"" + id + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Cache-Control", "private, max-age=31536000, immutable");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        String contentType = attachmentService.getContentType(id);
+        ContentDisposition.Builder disposition;
+        if (INLINE_TYPES.contains(contentType)) {
+            response.setContentType(contentType);
+            disposition = name != null ? ContentDisposition.attachment() : ContentDisposition.inline();
+        } else {
+            response.setContentType("application/octet-stream");
+            disposition = ContentDisposition.attachment();
+        }
+        if (name != null) {
+            disposition.filename(name, StandardCharsets.UTF_8);
+        }
+        response.setHeader("Content-Disposition", disposition.build().toString());
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = Files.size(file);
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] parsed = parseRange(range, size);
+            if (parsed == null) {
+                response.setHeader("Content-Range", "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // No sendfile (e.g. TLS): transferTo still avoids staging the file in our own buffers
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end - position + 1, out);
+                if (sent <= 0) break;
+                position += sent;
+            }
+        }
+    }
+
+    // Returns {start, end} for a satisfiable single range, an empty array when the header
+    // should be ignored (multiple or malformed ranges: serve the whole file), or null for 416
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                if (end < start) return new long[0];
+            }
+            if (start >= size) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
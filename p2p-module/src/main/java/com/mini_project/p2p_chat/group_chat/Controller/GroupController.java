@@ -1,12 +1,20 @@
 package com.mini_project.p2p_chat.group_chat.Controller;
 
+import com.mini_project.p2p_chat.config.StompTransportStats;
+import com.mini_project.p2p_chat.group_chat.Service.EphemeralSignalDispatcher;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMembershipIndex;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMessageLog;
+import com.mini_project.p2p_chat.group_chat.Service.GroupSearchIndex;
 import com.mini_project.p2p_chat.group_chat.Service.GroupService;
+import com.mini_project.p2p_chat.group_chat.Service.InviteTokenIndex;
 import com.mini_project.p2p_chat.group_chat.model.ChatGroup;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -14,9 +22,27 @@ import java.util.Optional;
 @RequestMapping("/api/groups")
 public class GroupController {
 
+    private static final int MAX_SYNC_PAGE = 500;
+    private static final int MAX_SEARCH_PAGE = 100;
+
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private GroupMembershipIndex membershipIndex;
+
+    @Autowired
+    private GroupMessageLog messageLog;
+
+    @Autowired
+    private GroupSearchIndex searchIndex;
+
+    @Autowired
+    private EphemeralSignalDispatcher ephemeralDispatcher;
+
+    @Autowired
+    private StompTransportStats transportStats;
+
     @PostMapping("/create")
     public ResponseEntity<Map<String, String>> createGroup(@RequestParam String name, @RequestHeader("X-User-Id") String userId) {
         ChatGroup group = groupService.createGroup(name, userId);
@@ -31,21 +57,16 @@ public class GroupController {
 
     @PostMapping("/join/{token}")
     public ResponseEntity<Map<String, String>> joinGroup(@PathVariable String token,   @RequestHeader("X-User-Id") String userId) {
-        boolean success = groupService.joinGroup(token, userId);
-        if (!success) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired token"));
-        }
-
-        Optional<ChatGroup> groupOpt = groupService.getGroupByToken(token);
+        Optional<InviteTokenIndex.GroupRef> groupOpt = groupService.joinGroup(token, userId);
         if (groupOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Group not found"));
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired token"));
         }
 
-        ChatGroup group = groupOpt.get();
+        InviteTokenIndex.GroupRef group = groupOpt.get();
 
         Map<String, String> response = new HashMap<>();
-        response.put("groupId", String.valueOf(group.getGroupId())); // for socket
-        response.put("groupName", group.getGroupName());
+        response.put("groupId", String.valueOf(group.groupId())); // for socket
+        response.put("groupName", group.groupName());
 
         return ResponseEntity.ok(response);
     }
@@ -57,5 +78,112 @@ public class GroupController {
         return success ? ResponseEntity.ok("Left") : ResponseEntity.badRequest().body("Invalid groupId");
     }
 
+    @GetMapping("/write-behind/stats")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStats() {
+        return ResponseEntity.ok(groupService.getWriteBehindStats());
+    }
+
+    @GetMapping("/{groupId}/online-members")
+    public ResponseEntity<Map<String, Object>> getOnlineMembers(@PathVariable Long groupId,
+                                                                @RequestHeader("X-User-Id") String userId) {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not a member of this group"));
+        }
+
+        List<String> online = membershipIndex.getOnlineMembers(groupId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("groupId", groupId);
+        response.put("onlineMembers", online);
+        response.put("count", online.size());
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Only for a caller who is in both groups
+    @GetMapping("/{groupId}/common-members/{otherGroupId}")
+    public ResponseEntity<List<String>> getCommonMembers(@PathVariable Long groupId, @PathVariable Long otherGroupId,
+                                                         @RequestHeader("X-User-Id") String userId) {
+        if (!groupService.isUserInGroup(groupId, userId) || !groupService.isUserInGroup(otherGroupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(membershipIndex.getCommonMembers(groupId, otherGroupId));
+    }
+
+    @GetMapping("/shared")
+    public ResponseEntity<List<Long>> getSharedGroups(@RequestParam String otherUserId, @RequestHeader("X-User-Id") String userId) {
+        return ResponseEntity.ok(membershipIndex.getSharedGroups(userId, otherUserId));
+    }
+
+    // Catch-up after a reconnect: everything after the last sequence number the client saw
+    @GetMapping("/{groupId}/messages")
+    public ResponseEntity<Map<String, Object>> syncMessages(@PathVariable Long groupId,
+                                                            @RequestParam(defaultValue = "0") long after,
+                                                            @RequestParam(defaultValue = "100") int limit,
+                                                            @RequestHeader("X-User-Id") String userId) {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not a member of this group"));
+        }
+
+        GroupMessageLog.SyncResult result = messageLog.since(groupId, after, Math.max(1, Math.min(limit, MAX_SYNC_PAGE)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("groupId", groupId);
+        response.put("reset", result.reset);
+        response.put("latestSeq", result.latestSeq);
+        response.put("hasMore", result.hasMore);
+        response.put("messages", result.messages);
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Newest matches first; pass nextBefore back as ?before= for the next page
+    @GetMapping("/{groupId}/search")
+    public ResponseEntity<Map<String, Object>> searchMessages(@PathVariable Long groupId,
+                                                              @RequestParam String q,
+                                                              @RequestParam(required = false) Long before,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              @RequestHeader("X-User-Id") String userId) {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not a member of this group"));
+        }
+
+        GroupSearchIndex.Page page = searchIndex.search(groupId, q, before, Math.max(1, Math.min(limit, MAX_SEARCH_PAGE)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("groupId", groupId);
+        response.put("query", q);
+        response.put("results", page.results);
+        response.put("nextBefore", page.nextBefore);
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Latest read pointer (seq) of each member, for rendering receipts when a group is opened
+    @GetMapping("/{groupId}/read-pointers")
+    public ResponseEntity<Map<String, Long>> getReadPointers(@PathVariable Long groupId,
+                                                             @RequestHeader("X-User-Id") String userId) {
+        if (!groupService.isUserInGroup(groupId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(ephemeralDispatcher.getReadPointers(groupId));
+    }
+
+    @GetMapping("/ephemeral/stats")
+    public ResponseEntity<Map<String, Object>> getEphemeralStats() {
+        return ResponseEntity.ok(ephemeralDispatcher.getStats());
+    }
+
+    // How many group chat clients are on the native WebSocket endpoint vs each SockJS transport
+    @GetMapping("/transport/stats")
+    public ResponseEntity<Map<String, Object>> getTransportStats() {
+        return ResponseEntity.ok(transportStats.getStats());
+    }
+
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(searchIndex.getStats());
+    }
+
 }
 
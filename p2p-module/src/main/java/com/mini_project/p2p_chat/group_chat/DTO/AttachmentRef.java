@@ -0,0 +1,53 @@
+package com.mini_project.p2p_chat.group_chat.DTO;
+
+// What a chat message carries instead of the file itself; the bytes are fetched
+// from GET /api/groups/{groupId}/attachments/{id}
+public class AttachmentRef {
+    private String id;          // SHA-256 of the content (hex)
+    private String name;
+    private String contentType;
+    private long size;
+
+    public AttachmentRef() {
+    }
+
+    public AttachmentRef(String id, String name, String contentType, long size) {
+        this.id = id;
+        this.name = name;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -8,6 +8,9 @@ public class ChatMessage {
     private String content;
     private Long groupId;
     private LocalDateTime timestamp;
+    private AttachmentRef attachment; // optional, uploaded separately
+    private Long seq;                 // assigned by the server, per group, starting at 1
+    private String clientMessageId;   // set by the client so retries are not delivered twice
 
     // Getters and Setters
     public String getSenderId() {
@@ -49,4 +52,28 @@ public class ChatMessage {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public AttachmentRef getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(AttachmentRef attachment) {
+        this.attachment = attachment;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    public void setClientMessageId(String clientMessageId) {
+        this.clientMessageId = clientMessageId;
+    }
 }
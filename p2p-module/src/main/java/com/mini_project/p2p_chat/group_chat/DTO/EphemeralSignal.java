@@ -0,0 +1,43 @@
+package com.mini_project.p2p_chat.group_chat.DTO;
+
+// Typing indicator or read receipt. Never stored, only fanned out (coalesced) to
+// /topic/group/{groupId}/ephemeral
+public class EphemeralSignal {
+    private Long groupId;
+    private String userId;
+    private boolean typing;   // typing signals
+    private Long lastReadSeq; // read receipts: highest ChatMessage.seq the user has read
+
+    // Getters and Setters
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public boolean isTyping() {
+        return typing;
+    }
+
+    public void setTyping(boolean typing) {
+        this.typing = typing;
+    }
+
+    public Long getLastReadSeq() {
+        return lastReadSeq;
+    }
+
+    public void setLastReadSeq(Long lastReadSeq) {
+        this.lastReadSeq = lastReadSeq;
+    }
+}
@@ -0,0 +1,157 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import com.mini_project.p2p_chat.group_chat.DTO.AttachmentRef;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Content-addressed attachment store. Uploads are streamed to a temp file while being
+// hashed, then moved to <dir>/<first two hex chars>/<sha256>; an identical file that is
+// already stored is simply reused, so the same image posted to ten groups is kept once.
+// The bytes are shared but access is not: <sha256>.groups lists the groups the file was
+// uploaded to, and only those groups can download it or reference it in a message.
+@Service
+public class AttachmentService {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${groups.attachments.dir:data/attachments}")
+    private String attachmentsDir;
+
+    @Value("${groups.attachments.max-bytes:104857600}")
+    private long maxBytes;
+
+    private Path root;
+    private Path tmpDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(attachmentsDir);
+        tmpDir = root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // Streams the body to disk; empty if it turned out larger than the configured limit
+    public Optional<AttachmentRef> store(Long groupId, InputStream body, String name, String contentType) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        long size = 0;
+        try {
+            try (ReadableByteChannel in = Channels.newChannel(body);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    if (size > maxBytes) {
+                        Files.deleteIfExists(tmp);
+                        return Optional.empty();
+                    }
+                    sha256.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            String id = HexFormat.of().formatHex(sha256.digest());
+            Path target = blobPath(id);
+            if (Files.exists(target)) {
+                Files.delete(tmp);
+            } else {
+                // A concurrent upload of the same content may win the rename; the bytes are identical
+                Files.createDirectories(target.getParent());
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                Files.writeString(metaPath(id), normalizeType(contentType), StandardCharsets.UTF_8);
+            }
+            grant(id, groupId);
+            return Optional.of(new AttachmentRef(id, name, contentType, size));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // Path of a stored attachment, or null for an unknown/malformed id
+    public Path resolve(String id) {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) return null;
+        Path blob = blobPath(id);
+        return Files.isRegularFile(blob) ? blob : null;
+    }
+
+    // Whether the attachment was uploaded to this group
+    public boolean isAvailableTo(String id, Long groupId) {
+        if (groupId == null || resolve(id) == null) return false;
+        try (Stream<String> groups = Files.lines(groupsPath(id), StandardCharsets.UTF_8)) {
+            return groups.anyMatch(groupId.toString()::equals);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public String getContentType(String id) {
+        try {
+            return Files.readString(metaPath(id), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "application/octet-stream";
+        }
+    }
+
+    private synchronized void grant(String id, Long groupId) throws IOException {
+        if (isAvailableTo(id, groupId)) return;
+        Files.writeString(groupsPath(id), groupId + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // "Image/PNG; charset=x" -> "image/png"; only the bare type is kept
+    private static String normalizeType(String contentType) {
+        if (contentType == null) return "application/octet-stream";
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase(Locale.ROOT);
+        return type.isEmpty() ? "application/octet-stream" : type;
+    }
+
+    private Path blobPath(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private Path metaPath(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id + ".type");
+    }
+
+    private Path groupsPath(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id + ".groups");
+    }
+}
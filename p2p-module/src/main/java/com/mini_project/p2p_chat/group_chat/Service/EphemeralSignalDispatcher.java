@@ -0,0 +1,144 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Typing indicators and read receipts. Nothing is persisted and membership is checked
+// against GroupMembershipIndex only. Updates are collected per group and sent once per
+// window as a single frame holding the latest state per user:
+//   { "typing": { userId: true|false }, "read": { userId: lastReadSeq } }
+// On the client outbound channel these frames queue behind chat frames (ChatFirstTaskQueue),
+// so real messages go first when the sending threads are busy.
+@Service
+public class EphemeralSignalDispatcher {
+
+    public static final String TOPIC_SUFFIX = "/ephemeral";
+    private static final Map<String, Object> EPHEMERAL_HEADERS = Map.of("ephemeral", "true");
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private GroupMembershipIndex membershipIndex;
+
+    @Value("${groups.ephemeral.window-ms:300}")
+    private long windowMs;
+
+    private static class Pending {
+        final Map<String, Boolean> typing = new HashMap<>();
+        final Map<String, Long> read = new HashMap<>();
+    }
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Latest read pointer of every user per group, so a client opening a group can fetch them
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, Long>> readPointers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sender;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong updatesSent = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "group-ephemeral-fanout");
+            t.setDaemon(true);
+            return t;
+        });
+        sender.scheduleWithFixedDelay(this::flushQuietly, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    public void typing(Long groupId, String userId, boolean typing) {
+        if (!accept(groupId, userId)) return;
+        pending.compute(groupId, (id, p) -> {
+            if (p == null) p = new Pending();
+            p.typing.put(userId, typing);
+            return p;
+        });
+    }
+
+    // Only ever moves a user's read pointer forward
+    public void read(Long groupId, String userId, long lastReadSeq) {
+        if (!accept(groupId, userId)) return;
+        ConcurrentHashMap<String, Long> pointers = readPointers.computeIfAbsent(groupId, id -> new ConcurrentHashMap<>());
+        Long previous = pointers.get(userId);
+        if (previous != null && previous >= lastReadSeq) return;
+        pointers.merge(userId, lastReadSeq, Math::max);
+
+        pending.compute(groupId, (id, p) -> {
+            if (p == null) p = new Pending();
+            p.read.merge(userId, lastReadSeq, Math::max);
+            return p;
+        });
+    }
+
+    public Map<String, Long> getReadPointers(Long groupId) {
+        Map<String, Long> pointers = readPointers.get(groupId);
+        return pointers == null ? Map.of() : Map.copyOf(pointers);
+    }
+
+    public void removeGroup(Long groupId) {
+        pending.remove(groupId);
+        readPointers.remove(groupId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("received", received.get());
+        stats.put("rejected", rejected.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("updatesSent", updatesSent.get());
+        stats.put("pendingGroups", pending.size());
+        return stats;
+    }
+
+    private boolean accept(Long groupId, String userId) {
+        received.incrementAndGet();
+        if (groupId == null || userId == null || !membershipIndex.isMember(groupId, userId)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error sending typing/read updates: " + e.getMessage());
+        }
+    }
+
+    private void flush() {
+        for (Long groupId : pending.keySet()) {
+            Pending p = pending.remove(groupId);
+            if (p == null) continue;
+
+            Map<String, Object> frame = new HashMap<>();
+            if (!p.typing.isEmpty()) frame.put("typing", p.typing);
+            if (!p.read.isEmpty()) frame.put("read", p.read);
+            messagingTemplate.convertAndSend("/topic/group/" + groupId + TOPIC_SUFFIX, frame, EPHEMERAL_HEADERS);
+
+            framesSent.incrementAndGet();
+            updatesSent.addAndGet(p.typing.size() + p.read.size());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory mirror of group membership and presence, stored as compressed bitmaps over
+// interned user/group ids. Lets us answer "who in this group is online" and "what do
+// these two have in common" with a bitmap AND instead of loading ChatGroup.members.
+@Service
+public class GroupMembershipIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Only users with at least one membership and groups that haven't been removed are interned.
+    // Released ids go on a free list and are handed out again lowest first, so the tables stay
+    // as large as the live data rather than everything ever seen.
+    private final Map<String, Integer> userIndex = new HashMap<>();
+    private final List<String> users = new ArrayList<>();
+    private final RoaringBitmap freeUsers = new RoaringBitmap();
+    private final Map<Long, Integer> groupIndex = new HashMap<>();
+    private final List<Long> groups = new ArrayList<>();
+    private final RoaringBitmap freeGroups = new RoaringBitmap();
+
+    private final Map<Integer, RoaringBitmap> membersByGroup = new HashMap<>(); // group -> users
+    private final Map<Integer, RoaringBitmap> groupsByUser = new HashMap<>();   // user -> groups
+    private final Set<String> onlineUsers = new HashSet<>();                    // everyone connected
+    private final RoaringBitmap online = new RoaringBitmap();                   // the interned ones
+    private volatile boolean loaded;
+
+    // Set once the database contents have been loaded; until then the index may be incomplete
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void addMember(Long groupId, String userId) {
+        lock.writeLock().lock();
+        try {
+            int g = internGroup(groupId);
+            int u = internUser(userId);
+            membersByGroup.computeIfAbsent(g, k -> new RoaringBitmap()).add(u);
+            groupsByUser.computeIfAbsent(u, k -> new RoaringBitmap()).add(g);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeMember(Long groupId, String userId) {
+        lock.writeLock().lock();
+        try {
+            Integer g = groupIndex.get(groupId);
+            Integer u = userIndex.get(userId);
+            if (g == null || u == null) return;
+
+            RoaringBitmap members = membersByGroup.get(g);
+            if (members != null) members.remove(u);
+            RoaringBitmap userGroups = groupsByUser.get(u);
+            if (userGroups != null) userGroups.remove(g);
+            releaseUserIfUnused(u);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeGroup(Long groupId) {
+        lock.writeLock().lock();
+        try {
+            Integer g = groupIndex.get(groupId);
+            if (g == null) return;
+
+            RoaringBitmap members = membersByGroup.remove(g);
+            if (members != null) {
+                members.forEach((int u) -> {
+                    RoaringBitmap userGroups = groupsByUser.get(u);
+                    if (userGroups != null) userGroups.remove(g);
+                    releaseUserIfUnused(u);
+                });
+            }
+            groupIndex.remove(groupId);
+            groups.set(g, null);
+            freeGroups.add(g);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replaces the membership of a group wholesale (used when loading from the database)
+    public void setMembers(Long groupId, Collection<String> userIds) {
+        lock.writeLock().lock();
+        try {
+            int g = internGroup(groupId);
+            RoaringBitmap previous = membersByGroup.get(g);
+            if (previous != null) {
+                previous.forEach((int u) -> {
+                    RoaringBitmap userGroups = groupsByUser.get(u);
+                    if (userGroups != null) userGroups.remove(g);
+                });
+            }
+
+            RoaringBitmap members = new RoaringBitmap();
+            for (String userId : userIds) {
+                int u = internUser(userId);
+                members.add(u);
+                groupsByUser.computeIfAbsent(u, k -> new RoaringBitmap()).add(g);
+            }
+            members.runOptimize();
+            membersByGroup.put(g, members);
+            // Only after the new members are in, so anyone who stayed keeps their id
+            if (previous != null) {
+                previous.forEach((int u) -> releaseUserIfUnused(u));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Doesn't intern: most connected users are in no group, and internUser picks this up on join
+    public void setOnline(String userId) {
+        lock.writeLock().lock();
+        try {
+            onlineUsers.add(userId);
+            Integer u = userIndex.get(userId);
+            if (u != null) online.add(u);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setOffline(String userId) {
+        lock.writeLock().lock();
+        try {
+            onlineUsers.remove(userId);
+            Integer u = userIndex.get(userId);
+            if (u != null) online.remove(u);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isMember(Long groupId, String userId) {
+        lock.readLock().lock();
+        try {
+            Integer g = groupIndex.get(groupId);
+            Integer u = userIndex.get(userId);
+            if (g == null || u == null) return false;
+            RoaringBitmap members = membersByGroup.get(g);
+            return members != null && members.contains(u);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasGroup(Long groupId) {
+        lock.readLock().lock();
+        try {
+            return membersOf(groupId) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countMembers(Long groupId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap members = membersOf(groupId);
+            return members == null ? 0 : members.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // group ∩ online
+    public List<String> getOnlineMembers(Long groupId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap members = membersOf(groupId);
+            if (members == null) return List.of();
+            return toUserIds(RoaringBitmap.and(members, online));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countOnlineMembers(Long groupId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap members = membersOf(groupId);
+            return members == null ? 0 : RoaringBitmap.andCardinality(members, online);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // group A ∩ group B
+    public List<String> getCommonMembers(Long groupIdA, Long groupIdB) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap a = membersOf(groupIdA);
+            RoaringBitmap b = membersOf(groupIdB);
+            if (a == null || b == null) return List.of();
+            return toUserIds(RoaringBitmap.and(a, b));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // groups(userA) ∩ groups(userB)
+    public List<Long> getSharedGroups(String userIdA, String userIdB) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap a = groupsOf(userIdA);
+            RoaringBitmap b = groupsOf(userIdB);
+            if (a == null || b == null) return List.of();
+
+            RoaringBitmap shared = RoaringBitmap.and(a, b);
+            List<Long> result = new ArrayList<>(shared.getCardinality());
+            shared.forEach((int g) -> result.add(groups.get(g)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap membersOf(Long groupId) {
+        Integer g = groupIndex.get(groupId);
+        return g == null ? null : membersByGroup.get(g);
+    }
+
+    private RoaringBitmap groupsOf(String userId) {
+        Integer u = userIndex.get(userId);
+        return u == null ? null : groupsByUser.get(u);
+    }
+
+    private List<String> toUserIds(RoaringBitmap bitmap) {
+        List<String> result = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int u) -> result.add(users.get(u)));
+        return result;
+    }
+
+    private int internUser(String userId) {
+        Integer u = userIndex.get(userId);
+        if (u == null) {
+            if (freeUsers.isEmpty()) {
+                u = users.size();
+                users.add(userId);
+            } else {
+                u = freeUsers.first();
+                freeUsers.remove(u);
+                users.set(u, userId);
+            }
+            userIndex.put(userId, u);
+            if (onlineUsers.contains(userId)) online.add(u);
+        }
+        return u;
+    }
+
+    // A released id is in no bitmap, so whoever gets it next starts clean
+    private void releaseUserIfUnused(int u) {
+        if (users.get(u) == null) return;
+        RoaringBitmap userGroups = groupsByUser.get(u);
+        if (userGroups != null && !userGroups.isEmpty()) return;
+        groupsByUser.remove(u);
+        online.remove(u);
+        userIndex.remove(users.get(u));
+        users.set(u, null);
+        freeUsers.add(u);
+    }
+
+    private int internGroup(Long groupId) {
+        Integer g = groupIndex.get(groupId);
+        if (g == null) {
+            if (freeGroups.isEmpty()) {
+                g = groups.size();
+                groups.add(groupId);
+            } else {
+                g = freeGroups.first();
+                freeGroups.remove(g);
+                groups.set(g, groupId);
+            }
+            groupIndex.put(groupId, g);
+        }
+        return g;
+    }
+}
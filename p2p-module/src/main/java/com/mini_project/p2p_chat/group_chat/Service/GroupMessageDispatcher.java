@@ -0,0 +1,164 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import com.mini_project.p2p_chat.config.CompactChatMessageConverter;
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Publishes chat messages to /topic/group/{groupId}. With coalescing enabled, a group whose
+// message rate goes over the threshold has its messages buffered and sent as one frame per
+// tick (a JSON array, marked with a "batch: true" header) instead of one frame per message.
+// Quiet groups still get every message immediately.
+//
+// Clients that understand the compact codec subscribe to /topic/group/{groupId}/c instead;
+// that variant is only encoded when someone is subscribed to it. Either way each payload is
+// converted once per publish and the broker hands the same bytes to every subscriber.
+@Service
+public class GroupMessageDispatcher {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final Map<String, Object> BATCH_HEADERS = Map.of("batch", "true");
+    public static final String COMPACT_SUFFIX = "/c";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private GroupTopicSubscriptions subscriptions;
+
+    @Value("${groups.delivery.coalescing.enabled:false}")
+    private boolean coalescingEnabled;
+
+    @Value("${groups.delivery.coalescing.threshold-per-second:20}")
+    private int thresholdPerSecond;
+
+    @Value("${groups.delivery.coalescing.tick-ms:50}")
+    private long tickMs;
+
+    @Value("${groups.delivery.coalescing.max-batch:100}")
+    private int maxBatch;
+
+    private final ConcurrentHashMap<Long, GroupState> groups = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    private static class GroupState {
+        final String destination;
+        long windowStart = System.nanoTime();
+        int windowCount;
+        int previousWindowCount;
+        List<ChatMessage> buffer = new ArrayList<>();
+        boolean retired;
+
+        GroupState(String destination) {
+            this.destination = destination;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!coalescingEnabled) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "group-frame-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdown();
+            tick();
+        }
+    }
+
+    public void publish(ChatMessage message) {
+        Long groupId = message.getGroupId();
+        if (!coalescingEnabled) {
+            send("/topic/group/" + groupId, message, false);
+            return;
+        }
+
+        while (true) {
+            GroupState state = groups.computeIfAbsent(groupId, id -> new GroupState("/topic/group/" + id));
+            // Sends happen under the group's lock so a single frame can never overtake a batch
+            synchronized (state) {
+                if (state.retired) continue;
+
+                long now = System.nanoTime();
+                if (now - state.windowStart >= WINDOW_NANOS) {
+                    state.previousWindowCount = now - state.windowStart < 2 * WINDOW_NANOS ? state.windowCount : 0;
+                    state.windowCount = 0;
+                    state.windowStart = now;
+                }
+                state.windowCount++;
+
+                int rate = Math.max(state.windowCount, state.previousWindowCount);
+                if (rate <= thresholdPerSecond && state.buffer.isEmpty()) {
+                    send(state.destination, message, false);
+                    return;
+                }
+
+                state.buffer.add(message);
+                if (state.buffer.size() >= maxBatch) {
+                    drain(state);
+                }
+                return;
+            }
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, GroupState> entry : groups.entrySet()) {
+            GroupState state = entry.getValue();
+            synchronized (state) {
+                try {
+                    drain(state);
+                } catch (Exception e) {
+                    System.err.println("Error flushing batched messages for " + state.destination + ": " + e.getMessage());
+                }
+                if (now - state.windowStart > IDLE_NANOS) {
+                    state.retired = true;
+                    groups.remove(entry.getKey(), state);
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock on state
+    private void drain(GroupState state) {
+        if (state.buffer.isEmpty()) return;
+        List<ChatMessage> batch = state.buffer;
+        state.buffer = new ArrayList<>();
+        send(state.destination, batch, true);
+    }
+
+    private void send(String destination, Object payload, boolean batch) {
+        messagingTemplate.convertAndSend(destination, payload, batch ? BATCH_HEADERS : null);
+
+        String compactDestination = destination + COMPACT_SUFFIX;
+        if (subscriptions.hasSubscribers(compactDestination)) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+            accessor.setContentType(CompactChatMessageConverter.COMPACT_JSON);
+            if (batch) accessor.setNativeHeader("batch", "true");
+            accessor.setLeaveMutable(true);
+            messagingTemplate.convertAndSend(compactDestination, payload, accessor.getMessageHeaders());
+        }
+    }
+}
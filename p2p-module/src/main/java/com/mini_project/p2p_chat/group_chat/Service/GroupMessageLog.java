@@ -0,0 +1,127 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Recent history of every group, numbered with a per-group sequence (1, 2, 3, ...) assigned
+// by the server. Clients remember the last sequence they saw; a jump means frames were lost
+// (e.g. during a SockJS reconnect) and they fetch just the missing range with since().
+// Each group keeps the last max-messages-per-group messages in a ring buffer.
+@Service
+public class GroupMessageLog {
+
+    @Value("${groups.history.max-messages-per-group:1000}")
+    private int maxMessages = 1000;
+
+    @Value("${groups.history.dedup-window:1024}")
+    private int dedupWindow = 1024;
+
+    private final ConcurrentHashMap<Long, GroupLog> logs = new ConcurrentHashMap<>();
+
+    private class GroupLog {
+        final ChatMessage[] ring = new ChatMessage[maxMessages];
+        long nextSeq = 1;
+        boolean removed;
+
+        // senderId + clientMessageId -> seq, most recent dedupWindow entries
+        final LinkedHashMap<String, Long> recentClientIds = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > dedupWindow;
+            }
+        };
+
+        long oldestRetained() {
+            return Math.max(1, nextSeq - ring.length);
+        }
+    }
+
+    public static class SyncResult {
+        public final boolean reset;     // the requested range is gone (evicted or server restarted)
+        public final long latestSeq;
+        public final boolean hasMore;
+        public final List<ChatMessage> messages;
+
+        SyncResult(boolean reset, long latestSeq, boolean hasMore, List<ChatMessage> messages) {
+            this.reset = reset;
+            this.latestSeq = latestSeq;
+            this.hasMore = hasMore;
+            this.messages = messages;
+        }
+    }
+
+    // Numbers and records the message, then hands it to publisher while still holding the
+    // group's lock so subscribers receive sequence numbers in order. Returns false (and
+    // publishes nothing) for a client retry of a message that was already accepted.
+    public boolean append(ChatMessage message, Consumer<ChatMessage> publisher) {
+        while (true) {
+            GroupLog log = logs.computeIfAbsent(message.getGroupId(), id -> new GroupLog());
+            synchronized (log) {
+                if (log.removed) continue;
+
+                String dedupKey = message.getClientMessageId() == null ? null
+                        : message.getSenderId() + '\0' + message.getClientMessageId();
+                if (dedupKey != null && log.recentClientIds.containsKey(dedupKey)) {
+                    return false;
+                }
+
+                long seq = log.nextSeq++;
+                message.setSeq(seq);
+                log.ring[(int) ((seq - 1) % log.ring.length)] = message;
+                if (dedupKey != null) {
+                    log.recentClientIds.put(dedupKey, seq);
+                }
+
+                publisher.accept(message);
+                return true;
+            }
+        }
+    }
+
+    // Messages with seq > afterSeq, oldest first, at most limit of them
+    public SyncResult since(Long groupId, long afterSeq, int limit) {
+        GroupLog log = logs.get(groupId);
+        if (log == null) {
+            return new SyncResult(afterSeq > 0, 0, false, List.of());
+        }
+
+        synchronized (log) {
+            long latest = log.nextSeq - 1;
+            long oldest = log.oldestRetained();
+            boolean reset = afterSeq > latest || afterSeq + 1 < oldest;
+            long from = reset ? oldest : afterSeq + 1;
+            long to = Math.min(latest, from + limit - 1);
+
+            List<ChatMessage> messages = new ArrayList<>((int) Math.max(0, to - from + 1));
+            for (long seq = from; seq <= to; seq++) {
+                messages.add(log.ring[(int) ((seq - 1) % log.ring.length)]);
+            }
+            return new SyncResult(reset, latest, to < latest, messages);
+        }
+    }
+
+    public long getLatestSeq(Long groupId) {
+        GroupLog log = logs.get(groupId);
+        if (log == null) return 0;
+        synchronized (log) {
+            return log.nextSeq - 1;
+        }
+    }
+
+    public void removeGroup(Long groupId) {
+        GroupLog log = logs.remove(groupId);
+        if (log != null) {
+            synchronized (log) {
+                log.removed = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Near-real-time full-text index over group messages. The send path only appends to a
+// queue; every refresh-ms a background thread turns what arrived into one small immutable
+// segment per group (docs sorted by seq + term -> doc postings). Searches read a snapshot
+// of a group's segments without locking. When a group collects more than merge-factor
+// segments, the smallest ones are merged on a separate thread. max-docs-per-group holds from
+// the moment a segment is added: older segments that fall entirely out of the window are
+// dropped right away, searches skip older docs in the rest, and merges leave them out.
+@Service
+public class GroupSearchIndex {
+
+    private static final int MAX_TERM_LENGTH = 64;
+
+    @Value("${groups.search.refresh-ms:1000}")
+    private long refreshMs;
+
+    @Value("${groups.search.merge-factor:10}")
+    private int mergeFactor;
+
+    @Value("${groups.search.max-docs-per-group:100000}")
+    private int maxDocsPerGroup;
+
+    @Value("${groups.search.max-queued:100000}")
+    private int maxQueued;
+
+    private final ConcurrentLinkedQueue<ChatMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentHashMap<Long, GroupSegments> groups = new ConcurrentHashMap<>();
+    // Removed group -> refresh pass it was removed during. Messages already queued for the group
+    // are dropped instead of creating it again; two passes later the queue can't hold any more.
+    private final ConcurrentHashMap<Long, Long> removedGroups = new ConcurrentHashMap<>();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final Set<Long> merging = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService refresher;
+    private ExecutorService merger;
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong merges = new AtomicLong();
+
+    private static class GroupSegments {
+        volatile List<Segment> segments = List.of(); // replaced, never mutated
+        volatile long oldestKept;                    // docs with seq <= this are past the cap
+        long newestSeq;
+        boolean removed;
+    }
+
+    private static class Segment {
+        final ChatMessage[] docs;            // ascending seq
+        final Map<String, int[]> postings;   // term -> ascending doc ordinals
+
+        Segment(ChatMessage[] docs) {
+            this.docs = docs;
+            Map<String, List<Integer>> building = new HashMap<>();
+            for (int i = 0; i < docs.length; i++) {
+                for (String term : tokenize(docs[i].getContent())) {
+                    building.computeIfAbsent(term, k -> new ArrayList<>()).add(i);
+                }
+            }
+            this.postings = new HashMap<>(building.size() * 2);
+            for (Map.Entry<String, List<Integer>> entry : building.entrySet()) {
+                postings.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        long maxSeq() {
+            return docs.length == 0 ? 0 : docs[docs.length - 1].getSeq();
+        }
+    }
+
+    public static class Page {
+        public final List<ChatMessage> results;   // newest first
+        public final Long nextBefore;             // pass as ?before= for the next page, null at the end
+
+        Page(List<ChatMessage> results, Long nextBefore) {
+            this.results = results;
+            this.nextBefore = nextBefore;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "group-search-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        merger = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "group-search-merge");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+        merger.shutdownNow();
+    }
+
+    // Called on the send path: never blocks, drops (and counts) if the indexer is far behind
+    public void enqueue(ChatMessage message) {
+        if (message.getContent() == null || message.getSeq() == null) return;
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(message);
+    }
+
+    // All query terms must appear; results newest first, only messages with seq < before
+    public Page search(Long groupId, String query, Long before, int limit) {
+        List<String> terms = tokenize(query);
+        GroupSegments group = groups.get(groupId);
+        if (terms.isEmpty() || group == null) return new Page(List.of(), null);
+
+        long upper = before == null ? Long.MAX_VALUE : before;
+        long lower = group.oldestKept;
+        List<ChatMessage> matches = new ArrayList<>();
+        for (Segment segment : group.segments) {
+            int[] hits = intersect(segment, terms);
+            // Ordinals follow seq, so walking backwards yields the newest first
+            int taken = 0;
+            for (int i = hits.length - 1; i >= 0 && taken <= limit; i--) {
+                ChatMessage doc = segment.docs[hits[i]];
+                if (doc.getSeq() <= lower) break;
+                if (doc.getSeq() < upper) {
+                    matches.add(doc);
+                    taken++;
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparing(ChatMessage::getSeq).reversed());
+        if (matches.size() > limit) {
+            List<ChatMessage> page = new ArrayList<>(matches.subList(0, limit));
+            return new Page(page, page.get(page.size() - 1).getSeq());
+        }
+        return new Page(matches, null);
+    }
+
+    public void removeGroup(Long groupId) {
+        removedGroups.put(groupId, refreshes.get());
+        GroupSegments group = groups.remove(groupId);
+        if (group != null) {
+            synchronized (group) {
+                group.removed = true;
+                group.segments = List.of();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int segmentCount = 0;
+        for (GroupSegments group : groups.values()) {
+            segmentCount += group.segments.size();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("indexed", indexed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("queued", queued.get());
+        stats.put("groups", groups.size());
+        stats.put("segments", segmentCount);
+        stats.put("merges", merges.get());
+        return stats;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Error refreshing group search index: " + e.getMessage());
+        }
+    }
+
+    // Package-private so tests can run a pass without waiting for the scheduler
+    void refresh() {
+        long pass = refreshes.incrementAndGet();
+        Map<Long, List<ChatMessage>> byGroup = new HashMap<>();
+        ChatMessage message;
+        while ((message = queue.poll()) != null) {
+            queued.decrementAndGet();
+            byGroup.computeIfAbsent(message.getGroupId(), k -> new ArrayList<>()).add(message);
+        }
+
+        for (Map.Entry<Long, List<ChatMessage>> entry : byGroup.entrySet()) {
+            List<ChatMessage> docs = entry.getValue();
+            docs.sort(Comparator.comparing(ChatMessage::getSeq));
+            Segment segment = new Segment(docs.toArray(new ChatMessage[0]));
+
+            boolean added = false;
+            while (true) {
+                GroupSegments group = groups.computeIfAbsent(entry.getKey(), k -> new GroupSegments());
+                synchronized (group) {
+                    if (group.removed) continue;
+                    // Checked after computeIfAbsent: removeGroup records the tombstone before it
+                    // takes the group out of the map, so a group created here can't outlive it
+                    if (removedGroups.containsKey(entry.getKey())) {
+                        group.removed = true;
+                        groups.remove(entry.getKey(), group);
+                        break;
+                    }
+                    group.newestSeq = Math.max(group.newestSeq, segment.maxSeq());
+                    long oldestKept = group.newestSeq - maxDocsPerGroup;
+                    List<Segment> updated = new ArrayList<>(group.segments.size() + 1);
+                    for (Segment existing : group.segments) {
+                        if (existing.maxSeq() > oldestKept) updated.add(existing);
+                    }
+                    if (segment.maxSeq() > oldestKept) updated.add(segment);
+                    group.oldestKept = oldestKept;
+                    group.segments = List.copyOf(updated);
+                    if (updated.size() > mergeFactor && merging.add(entry.getKey())) {
+                        merger.execute(() -> merge(entry.getKey(), group));
+                    }
+                    added = true;
+                    break;
+                }
+            }
+            if (added) indexed.addAndGet(docs.size());
+        }
+
+        removedGroups.values().removeIf(removedDuring -> removedDuring < pass - 1);
+    }
+
+    private void merge(Long groupId, GroupSegments group) {
+        try {
+            List<Segment> snapshot = group.segments;
+            if (snapshot.size() <= mergeFactor) return;
+
+            // Merge the smallest segments into one, leaving out docs already past the cap
+            List<Segment> bySize = new ArrayList<>(snapshot);
+            bySize.sort(Comparator.comparingInt(s -> s.docs.length));
+            List<Segment> selected = bySize.subList(0, mergeFactor);
+            long oldestKept = group.oldestKept;
+
+            List<ChatMessage> docs = new ArrayList<>();
+            for (Segment segment : selected) {
+                for (ChatMessage doc : segment.docs) {
+                    if (doc.getSeq() > oldestKept) docs.add(doc);
+                }
+            }
+            docs.sort(Comparator.comparing(ChatMessage::getSeq));
+            Segment merged = new Segment(docs.toArray(new ChatMessage[0]));
+
+            synchronized (group) {
+                if (group.removed) return;
+                Map<Segment, Boolean> replaced = new IdentityHashMap<>();
+                for (Segment segment : selected) replaced.put(segment, Boolean.TRUE);
+
+                List<Segment> updated = new ArrayList<>();
+                for (Segment segment : group.segments) {
+                    if (!replaced.containsKey(segment)) updated.add(segment);
+                }
+                if (merged.docs.length > 0) updated.add(merged);
+                group.segments = List.copyOf(updated);
+            }
+            merges.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("Error merging search segments for group " + groupId + ": " + e.getMessage());
+        } finally {
+            merging.remove(groupId);
+        }
+    }
+
+    // Sorted intersection of the postings of every term, rarest term first
+    private static int[] intersect(Segment segment, List<String> terms) {
+        int[][] lists = new int[terms.size()][];
+        for (int i = 0; i < terms.size(); i++) {
+            lists[i] = segment.postings.get(terms.get(i));
+            if (lists[i] == null) return new int[0];
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        int[] result = lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            int[] other = lists[i];
+            int[] next = new int[result.length];
+            int n = 0;
+            int j = 0;
+            for (int doc : result) {
+                while (j < other.length && other[j] < doc) j++;
+                if (j == other.length) break;
+                if (other[j] == doc) next[n++] = doc;
+            }
+            result = Arrays.copyOf(next, n);
+        }
+        return result;
+    }
+
+    // Lower-cased runs of letters/digits; duplicates removed, overly long tokens skipped
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+}
@@ -3,10 +3,17 @@ package com.mini_project.p2p_chat.group_chat.Service;
 import com.mini_project.p2p_chat.group_chat.Repo.ChatGroupRepository;
 import com.mini_project.p2p_chat.group_chat.model.ChatGroup;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +22,42 @@ public class GroupService {
     @Autowired
     private ChatGroupRepository groupRepo;
 
+    @Autowired
+    private GroupMembershipIndex membershipIndex;
+
+    @Autowired
+    private InviteTokenIndex inviteTokenIndex;
+
+    @Autowired
+    private MembershipWriteBehind writeBehind;
+
+    @Autowired
+    private GroupMessageLog messageLog;
+
+    @Autowired
+    private GroupSearchIndex searchIndex;
+
+    @Autowired
+    private EphemeralSignalDispatcher ephemeralDispatcher;
+
+    // Write-behind joins and leaves check and change the index and record the change as one step,
+    // so a join can't slip in between the last member leaving and the group being marked empty
+    private final Object writeBehindLock = new Object();
+
+    // Seed the in-memory membership bitmaps and invite token filter from the database once on startup,
+    // ahead of other ready listeners (the warm-up) that rely on them
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void loadIndexes() {
+        for (ChatGroup group : groupRepo.findAll()) {
+            membershipIndex.setMembers(group.getGroupId(), group.getMembers());
+            inviteTokenIndex.add(group.getToken(), group.getGroupId(), group.getGroupName());
+        }
+        membershipIndex.markLoaded();
+        inviteTokenIndex.markLoaded();
+    }
+
     @Transactional
     public ChatGroup createGroup(String groupName, String creatorId) {
         ChatGroup group = new ChatGroup();
@@ -23,23 +66,49 @@ public class GroupService {
         group.setToken(UUID.randomUUID().toString());
         group.getMembers().add(creatorId);
         ChatGroup cg = groupRepo.save(group);
+        afterCommit(() -> {
+            membershipIndex.addMember(cg.getGroupId(), creatorId);
+            inviteTokenIndex.add(cg.getToken(), cg.getGroupId(), cg.getGroupName());
+        });
         System.out.println(cg.toString());
         return cg;
     }
 
+    // Returns the joined group's id and name, or empty if the token is unknown or the group was just emptied
     @Transactional
-    public boolean joinGroup(String token, String userId) {
-        Optional<ChatGroup> groupOpt = groupRepo.findByToken(token);
-        if (groupOpt.isEmpty()) return false;
+    public Optional<InviteTokenIndex.GroupRef> joinGroup(String token, String userId) {
+        Optional<InviteTokenIndex.GroupRef> refOpt = findGroupByToken(token);
+        if (refOpt.isEmpty()) return Optional.empty();
 
+        Long groupId = refOpt.get().groupId();
+        if (writeBehind.isEnabled() && membershipIndex.isLoaded()) {
+            synchronized (writeBehindLock) {
+                // Its last member left; the flusher is about to delete the row
+                if (!membershipIndex.hasGroup(groupId)) return Optional.empty();
+                membershipIndex.addMember(groupId, userId);
+                writeBehind.record(MembershipWriteBehind.Op.JOIN, groupId, userId);
+            }
+            return refOpt;
+        }
+
+        Optional<ChatGroup> groupOpt = groupRepo.findById(groupId);
+        if (groupOpt.isEmpty()) {
+            inviteTokenIndex.evict(token);
+            return Optional.empty();
+        }
         ChatGroup group = groupOpt.get();
         group.getMembers().add(userId);
         groupRepo.save(group);
-        return true;
+        afterCommit(() -> membershipIndex.addMember(groupId, userId));
+        return refOpt;
     }
 
     @Transactional
     public boolean leaveGroupById(Long groupId, String userId) {
+        if (writeBehind.isEnabled() && membershipIndex.isLoaded()) {
+            return leaveGroupWriteBehind(groupId, userId);
+        }
+
         Optional<ChatGroup> groupOpt = groupRepo.findById(groupId);
         if (groupOpt.isEmpty()) return false;
 
@@ -48,15 +117,90 @@ public class GroupService {
 
         if (group.getMembers().isEmpty()) {
             groupRepo.delete(group);
+            String token = group.getToken();
+            afterCommit(() -> {
+                membershipIndex.removeGroup(groupId);
+                inviteTokenIndex.evict(token);
+                messageLog.removeGroup(groupId);
+                searchIndex.removeGroup(groupId);
+                ephemeralDispatcher.removeGroup(groupId);
+            });
         } else {
             groupRepo.save(group);
+            afterCommit(() -> membershipIndex.removeMember(groupId, userId));
         }
 
         return true;
     }
-    public Optional<ChatGroup> getGroupByToken(String token) {
-        return groupRepo.findByToken(token);
-    }    public boolean isUserInGroup(Long groupId, String userId) {
+
+    // The group row is deleted by the flusher once the batch leaves it without members
+    private boolean leaveGroupWriteBehind(Long groupId, String userId) {
+        boolean emptied;
+        synchronized (writeBehindLock) {
+            if (!membershipIndex.hasGroup(groupId)) return false;
+
+            membershipIndex.removeMember(groupId, userId);
+            emptied = membershipIndex.countMembers(groupId) == 0;
+            if (emptied) {
+                membershipIndex.removeGroup(groupId);
+            }
+            writeBehind.record(MembershipWriteBehind.Op.LEAVE, groupId, userId);
+        }
+
+        if (emptied) {
+            groupRepo.findById(groupId).ifPresent(group -> inviteTokenIndex.evict(group.getToken()));
+            messageLog.removeGroup(groupId);
+            searchIndex.removeGroup(groupId);
+            ephemeralDispatcher.removeGroup(groupId);
+        }
+        return true;
+    }
+
+    public Map<String, Object> getWriteBehindStats() {
+        return writeBehind.getStats();
+    }
+
+    public Optional<InviteTokenIndex.GroupRef> getGroupByToken(String token) {
+        return findGroupByToken(token);
+    }
+
+    // Bloom filter first, then the cached id and name, and only then a lookup by token. A cache
+    // hit doesn't touch the database: once the membership index is loaded it knows whether the
+    // group still exists, and a hit for a deleted group is evicted.
+    private Optional<InviteTokenIndex.GroupRef> findGroupByToken(String token) {
+        if (!inviteTokenIndex.mightExist(token)) return Optional.empty();
+
+        InviteTokenIndex.GroupRef cached = inviteTokenIndex.get(token);
+        if (cached != null) {
+            if (!membershipIndex.isLoaded() || membershipIndex.hasGroup(cached.groupId())) return Optional.of(cached);
+            inviteTokenIndex.evict(token);
+            return Optional.empty();
+        }
+
+        return groupRepo.findByToken(token)
+                .map(group -> inviteTokenIndex.cache(token, group.getGroupId(), group.getGroupName()));
+    }
+
+    // In-memory indexes follow the database only once the change is committed, so a rollback
+    // can't leave them ahead of it; outside a transaction the change applies right away
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public boolean isUserInGroup(Long groupId, String userId) {
+        // With write-behind the database may lag; the in-memory index is authoritative
+        if (writeBehind.isEnabled() && membershipIndex.isLoaded()) {
+            return membershipIndex.isMember(groupId, userId);
+        }
         return groupRepo.isUserMemberOfGroup(groupId, userId);
     }
 }
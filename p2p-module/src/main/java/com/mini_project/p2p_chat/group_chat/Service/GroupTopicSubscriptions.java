@@ -0,0 +1,68 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Counts STOMP subscribers per /topic/group/** destination so the dispatcher can skip
+// encoding a payload variant (e.g. the compact one) that nobody is subscribed to
+@Component
+public class GroupTopicSubscriptions {
+
+    private static final String PREFIX = "/topic/group/";
+
+    private final ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+    // sessionId -> subscriptionId -> destination, to undo everything on disconnect
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(PREFIX)
+                || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) return;
+
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+        if (previous != null) decrement(previous);
+        counts.merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() == null ? null : sessions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) return;
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) decrement(destination);
+    }
+
+    // May be published more than once per session; the session map makes it idempotent
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions == null) return;
+        for (String destination : subscriptions.values()) {
+            decrement(destination);
+        }
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return counts.containsKey(destination);
+    }
+
+    public int getSubscriberCount(String destination) {
+        return counts.getOrDefault(destination, 0);
+    }
+
+    private void decrement(String destination) {
+        counts.computeIfPresent(destination, (d, count) -> count <= 1 ? null : count - 1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Front door for invite tokens on /api/groups/join. A Bloom filter over every token ever
+// issued lets us reject made-up tokens without a database round trip, and a bounded LRU
+// cache maps known tokens straight to the group's id and name, all a join needs to answer.
+// Assumes this node issues every token (single instance with the embedded database).
+@Service
+public class InviteTokenIndex {
+
+    private static final int INITIAL_CAPACITY = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    // Scalable Bloom filter: when the newest layer fills up, a bigger one is stacked on
+    // top. Deleted groups leave their bits behind, which only costs a fallback DB lookup.
+    private final List<BloomLayer> layers = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+
+    // Group names never change once created, so a cached entry is only stale if the group is gone
+    public record GroupRef(Long groupId, String groupName) {}
+
+    private final Map<String, GroupRef> tokenToGroup = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GroupRef> eldest) {
+            return size() > MAX_CACHED_TOKENS;
+        }
+    };
+
+    public InviteTokenIndex() {
+        layers.add(new BloomLayer(INITIAL_CAPACITY, FALSE_POSITIVE_RATE));
+    }
+
+    // Called once every existing token has been added; until then every token "might exist"
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public void add(String token, Long groupId, String groupName) {
+        BloomLayer current = layers.get(layers.size() - 1);
+        if (current.isFull()) {
+            synchronized (layers) {
+                current = layers.get(layers.size() - 1);
+                if (current.isFull()) {
+                    current = new BloomLayer(current.capacity * 2, FALSE_POSITIVE_RATE);
+                    layers.add(current);
+                }
+            }
+        }
+        current.add(token);
+        cache(token, groupId, groupName);
+    }
+
+    public boolean mightExist(String token) {
+        if (token == null) return false;
+        if (!loaded) return true;
+        for (BloomLayer layer : layers) {
+            if (layer.mightContain(token)) return true;
+        }
+        return false;
+    }
+
+    public GroupRef get(String token) {
+        synchronized (tokenToGroup) {
+            return tokenToGroup.get(token);
+        }
+    }
+
+    public GroupRef cache(String token, Long groupId, String groupName) {
+        GroupRef ref = new GroupRef(groupId, groupName);
+        synchronized (tokenToGroup) {
+            tokenToGroup.put(token, ref);
+        }
+        return ref;
+    }
+
+    public void evict(String token) {
+        synchronized (tokenToGroup) {
+            tokenToGroup.remove(token);
+        }
+    }
+
+    private static class BloomLayer {
+        final int capacity;
+        final int numBits;
+        final int numHashes;
+        final AtomicLongArray bits;
+        final AtomicInteger count = new AtomicInteger();
+
+        BloomLayer(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            double ln2 = Math.log(2);
+            this.numBits = (int) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * ln2));
+            this.bits = new AtomicLongArray((numBits + 63) >>> 6);
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        void add(String token) {
+            long hash = hash64(token);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                } while ((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(String token) {
+            long hash = hash64(token);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        // FNV-1a followed by a murmur-style finalizer so both 32-bit halves are well mixed
+        private static long hash64(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= (h >>> 33);
+            h *= 0xff51afd7ed558ccdL;
+            h ^= (h >>> 33);
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= (h >>> 33);
+            return h;
+        }
+    }
+}
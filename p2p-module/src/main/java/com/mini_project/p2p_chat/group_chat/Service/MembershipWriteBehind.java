@@ -0,0 +1,309 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import com.mini_project.p2p_chat.group_chat.Repo.ChatGroupRepository;
+import com.mini_project.p2p_chat.group_chat.model.ChatGroup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Opt-in write-behind for group joins/leaves. Changes are applied to GroupMembershipIndex
+// right away (that is what authorization reads), appended to a local journal, and written
+// to the database in batched transactions on a timer or once enough changes pile up.
+// Journal segments are only deleted after their batch commits, so anything still on disk
+// at startup is replayed before the node serves traffic. Replay is idempotent because
+// joins and leaves are set operations. The journal only helps with a persistent datasource:
+// against the default in-memory H2 the groups are gone after a restart, so there is nothing
+// to replay into.
+@Service
+public class MembershipWriteBehind {
+
+    public enum Op { JOIN, LEAVE }
+
+    private record Change(Op op, Long groupId, String userId) {}
+
+    @Value("${groups.membership.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${groups.membership.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${groups.membership.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${groups.membership.write-behind.journal-dir:data/membership-journal}")
+    private String journalDir;
+
+    @Autowired
+    private ChatGroupRepository groupRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GroupMembershipIndex membershipIndex;
+
+    private final Object flushLock = new Object();
+    private List<Change> pending = new ArrayList<>();
+    private List<Change> retry = new ArrayList<>();        // failed batch, touched only under flushLock
+    private final List<Path> unflushedSegments = new ArrayList<>();
+    private FileChannel journal;
+    private Path journalPath;
+    private long segmentSeq;
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong changesFlushed = new AtomicLong();
+    private final AtomicLong droppedChanges = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile int lastBatchSize;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) return;
+
+        Files.createDirectories(Paths.get(journalDir));
+        segmentSeq = System.currentTimeMillis();
+        recover();
+        openSegment();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "membership-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("Membership write-behind enabled (interval " + flushIntervalMs + "ms, batch " + batchSize + ")");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) return;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing membership journal: " + e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(Op op, Long groupId, String userId) {
+        Change change = new Change(op, groupId, userId);
+        int size;
+        synchronized (this) {
+            try {
+                journal.write(ByteBuffer.wrap(encode(change)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not journal membership change", e);
+            }
+            pending.add(change);
+            size = pending.size();
+        }
+        if (size == batchSize) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long count = flushes.get();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("flushes", count);
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("changesFlushed", changesFlushed.get());
+        stats.put("droppedChanges", droppedChanges.get());
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastFlushMs", lastFlushNanos / 1_000_000.0);
+        stats.put("avgFlushMs", count == 0 ? 0.0 : totalFlushNanos.get() / (double) count / 1_000_000.0);
+        stats.put("maxFlushMs", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing membership changes: " + e.getMessage());
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (flushLock) {
+            List<Change> batch = retry;
+            retry = new ArrayList<>();
+            synchronized (this) {
+                if (!pending.isEmpty()) {
+                    batch.addAll(pending);
+                    pending = new ArrayList<>();
+                    rotateSegment();
+                }
+            }
+            if (batch.isEmpty()) return;
+
+            long start = System.nanoTime();
+            Set<Long> missing;
+            try {
+                missing = transactionTemplate.execute(status -> apply(batch));
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                retry = batch;
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            dropMissingGroups(missing, batch, true);
+
+            for (Path segment : unflushedSegments) {
+                Files.deleteIfExists(segment);
+            }
+            unflushedSegments.clear();
+
+            flushes.incrementAndGet();
+            changesFlushed.addAndGet(batch.size());
+            totalFlushNanos.addAndGet(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            lastFlushNanos = elapsed;
+            lastBatchSize = batch.size();
+        }
+    }
+
+    // One load per touched group, changes applied in arrival order, then save or delete.
+    // Returns the groups that are no longer in the database; their changes are not applied.
+    private Set<Long> apply(List<Change> batch) {
+        Map<Long, List<Change>> byGroup = new LinkedHashMap<>();
+        for (Change change : batch) {
+            byGroup.computeIfAbsent(change.groupId(), k -> new ArrayList<>()).add(change);
+        }
+
+        List<ChatGroup> toSave = new ArrayList<>();
+        List<ChatGroup> toDelete = new ArrayList<>();
+        for (ChatGroup group : groupRepo.findAllById(byGroup.keySet())) {
+            for (Change change : byGroup.remove(group.getGroupId())) {
+                if (change.op() == Op.JOIN) {
+                    group.getMembers().add(change.userId());
+                } else {
+                    group.getMembers().remove(change.userId());
+                }
+            }
+            if (group.getMembers().isEmpty()) {
+                toDelete.add(group);
+            } else {
+                toSave.add(group);
+            }
+        }
+        groupRepo.saveAll(toSave);
+        groupRepo.deleteAll(toDelete);
+        return byGroup.keySet();
+    }
+
+    // A group's row is deleted once its last member leaves, and GroupService refuses joins to a
+    // group in that state, so this only catches changes that got past it (e.g. a journal replayed
+    // against a database that no longer has the group). Those changes can't be applied; the
+    // index is brought back in line with the database instead of keeping members it doesn't have.
+    private void dropMissingGroups(Set<Long> missing, List<Change> batch, boolean updateIndex) {
+        if (missing.isEmpty()) return;
+        long dropped = batch.stream().filter(change -> missing.contains(change.groupId())).count();
+        droppedChanges.addAndGet(dropped);
+        if (updateIndex) {
+            missing.forEach(membershipIndex::removeGroup);
+        }
+        System.err.println("Dropped " + dropped + " membership changes for deleted group(s) " + missing);
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(Paths.get(journalDir))) {
+            segments = files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+        if (segments.isEmpty()) return;
+
+        List<Change> changes = new ArrayList<>();
+        for (Path segment : segments) {
+            String content = Files.readString(segment, StandardCharsets.UTF_8);
+            // Only newline-terminated lines are complete; a torn tail from a crash is dropped
+            int end = content.lastIndexOf('\n');
+            if (end < 0) continue;
+            for (String line : content.substring(0, end).split("\n")) {
+                Change change = decode(line);
+                if (change != null) changes.add(change);
+            }
+        }
+
+        // The index is loaded from the database afterwards, so it can't disagree with it
+        dropMissingGroups(transactionTemplate.execute(status -> apply(changes)), changes, false);
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+        System.out.println("Replayed " + changes.size() + " membership changes from " + segments.size() + " journal segment(s)");
+    }
+
+    // Caller holds the monitor on this
+    private void rotateSegment() throws IOException {
+        journal.force(false);
+        journal.close();
+        unflushedSegments.add(journalPath);
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        journalPath = Paths.get(journalDir, String.format("%020d.log", segmentSeq++));
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static byte[] encode(Change change) {
+        String line = (change.op() == Op.JOIN ? "J" : "L") + "\t" + change.groupId() + "\t"
+                + URLEncoder.encode(change.userId(), StandardCharsets.UTF_8) + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Change decode(String line) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length != 3) return null;
+        try {
+            Op op = "J".equals(parts[0]) ? Op.JOIN : "L".equals(parts[0]) ? Op.LEAVE : null;
+            if (op == null) return null;
+            return new Change(op, Long.parseLong(parts[1]), URLDecoder.decode(parts[2], StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Sorted, searchable view of the users currently registered through "user_online".
+// Entries are keyed by lower-cased name so a name prefix maps onto a contiguous range
+// of the skip list, which also gives us stable cursors for pagination.
+public class OnlineUserIndex {
+
+    private static final int MAX_CHANGE_LOG = 1024;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    public static class Entry {
+        public final String id;
+        public final String name;
+
+        public Entry(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Change {
+        public final long version;
+        public final String type; // "online" or "offline"
+        public final String id;
+        public final String name;
+
+        public Change(long version, String type, String id, String name) {
+            this.version = version;
+            this.type = type;
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Page {
+        public final List<Entry> users;
+        public final String nextCursor;
+        public final long version;
+
+        public Page(List<Entry> users, String nextCursor, long version) {
+            this.users = users;
+            this.nextCursor = nextCursor;
+            this.version = version;
+        }
+    }
+
+    private final ConcurrentSkipListMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, String> keyByUserId = new ConcurrentHashMap<>();
+
+    // Writers are serialized so the version, the change log and the skip list move together
+    private final Object writeLock = new Object();
+    private final ArrayDeque<Change> changeLog = new ArrayDeque<>();
+    private volatile long version;
+    private CompletableFuture<Long> nextChange = new CompletableFuture<>();
+
+    public void put(String userId, String userName) {
+        CompletableFuture<Long> toComplete;
+        long newVersion;
+        synchronized (writeLock) {
+            String name = userName != null ? userName : userId;
+            String key = keyFor(name, userId);
+            String oldKey = keyByUserId.put(userId, key);
+            if (oldKey != null && !oldKey.equals(key)) {
+                byName.remove(oldKey);
+            }
+            byName.put(key, new Entry(userId, name));
+
+            newVersion = version + 1;
+            appendChange(new Change(newVersion, "online", userId, name));
+            version = newVersion;
+            toComplete = nextChange;
+            nextChange = new CompletableFuture<>();
+        }
+        toComplete.complete(newVersion);
+    }
+
+    public void remove(String userId) {
+        CompletableFuture<Long> toComplete;
+        long newVersion;
+        synchronized (writeLock) {
+            String key = keyByUserId.remove(userId);
+            if (key == null) {
+                return;
+            }
+            Entry removed = byName.remove(key);
+
+            newVersion = version + 1;
+            appendChange(new Change(newVersion, "offline", userId, removed != null ? removed.name : null));
+            version = newVersion;
+            toComplete = nextChange;
+            nextChange = new CompletableFuture<>();
+        }
+        toComplete.complete(newVersion);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return keyByUserId.size();
+    }
+
+    // Case-insensitive name prefix search. The cursor is the opaque value returned as
+    // nextCursor by the previous page; null starts from the beginning of the range.
+    public Page search(String prefix, String cursor, int limit) {
+        String normalizedPrefix = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        String upperKey = normalizedPrefix + Character.MAX_VALUE;
+        String afterKey = decodeCursor(cursor);
+        // A cursor from a search with another prefix (or a made-up one) starts from the beginning
+        if (afterKey != null && !afterKey.startsWith(normalizedPrefix)) {
+            afterKey = null;
+        }
+
+        // Retry until the page was read without a concurrent write, so the version we
+        // return (and the ETag built from it) always matches the content
+        for (int attempt = 0; ; attempt++) {
+            long before = version;
+            NavigableMap<String, Entry> range = normalizedPrefix.isEmpty()
+                    ? byName
+                    : byName.subMap(normalizedPrefix, true, upperKey, false);
+            if (afterKey != null) {
+                // Keys past the end of the range can only come from a crafted cursor
+                range = !normalizedPrefix.isEmpty() && afterKey.compareTo(upperKey) >= 0
+                        ? Collections.emptyNavigableMap()
+                        : range.tailMap(afterKey, false);
+            }
+
+            List<Entry> users = new ArrayList<>(Math.min(limit, 64));
+            String lastKey = null;
+            boolean more = false;
+            for (Map.Entry<String, Entry> e : range.entrySet()) {
+                if (users.size() == limit) {
+                    more = true;
+                    break;
+                }
+                users.add(e.getValue());
+                lastKey = e.getKey();
+            }
+
+            if (before == version || attempt >= 3) {
+                return new Page(users, more ? encodeCursor(lastKey) : null, before);
+            }
+        }
+    }
+
+    // Returns the changes with a version greater than sinceVersion, or null when the
+    // change log no longer reaches back that far and the client has to reload.
+    public List<Change> changesSince(long sinceVersion) {
+        synchronized (writeLock) {
+            if (sinceVersion >= version) {
+                return Collections.emptyList();
+            }
+            Change oldest = changeLog.peekFirst();
+            if (oldest == null || oldest.version > sinceVersion + 1) {
+                return null;
+            }
+            List<Change> changes = new ArrayList<>();
+            for (Change change : changeLog) {
+                if (change.version > sinceVersion) {
+                    changes.add(change);
+                }
+            }
+            return changes;
+        }
+    }
+
+    // Completes as soon as the index moves past sinceVersion (immediately if it already has)
+    public CompletableFuture<Long> awaitChangeAfter(long sinceVersion) {
+        synchronized (writeLock) {
+            if (version > sinceVersion) {
+                return CompletableFuture.completedFuture(version);
+            }
+            return nextChange;
+        }
+    }
+
+    private void appendChange(Change change) {
+        if (changeLog.size() == MAX_CHANGE_LOG) {
+            changeLog.removeFirst();
+        }
+        changeLog.addLast(change);
+    }
+
+    private static String keyFor(String name, String userId) {
+        return name.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + userId;
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
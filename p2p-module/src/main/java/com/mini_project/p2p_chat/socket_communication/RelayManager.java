@@ -0,0 +1,249 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+// Server-side relay for peers whose WebRTC negotiation failed (e.g. both behind symmetric
+// NATs). Two users agree on a relay over the normal signaling channel, get a channel id,
+// and then exchange binary frames laid out as [int32 channel][opaque bytes]. Each direction
+// is rate limited by a token bucket and each pair has a total byte quota, so the cost of a
+// relay to the server is bounded and known up front.
+@Component
+public class RelayManager {
+
+    private static final long REQUEST_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    static final int DEFAULT_MAX_FRAME_BYTES = 65536;
+    static final long DEFAULT_RATE_BYTES_PER_SECOND = 262144;
+    static final long DEFAULT_QUOTA_BYTES = 52428800;
+    static final int DEFAULT_MAX_PAIRS_PER_USER = 4;
+
+    private final int maxFrameBytes;
+    private final long rateBytesPerSecond;
+    private final long quotaBytes;
+    private final int maxPairsPerUser;
+
+    @Autowired
+    public RelayManager(@Value("${relay.max-frame-bytes:" + DEFAULT_MAX_FRAME_BYTES + "}") int maxFrameBytes,
+                        @Value("${relay.rate-bytes-per-second:" + DEFAULT_RATE_BYTES_PER_SECOND + "}") long rateBytesPerSecond,
+                        @Value("${relay.quota-bytes:" + DEFAULT_QUOTA_BYTES + "}") long quotaBytes,
+                        @Value("${relay.max-pairs-per-user:" + DEFAULT_MAX_PAIRS_PER_USER + "}") int maxPairsPerUser) {
+        this.maxFrameBytes = maxFrameBytes;
+        this.rateBytesPerSecond = rateBytesPerSecond;
+        this.quotaBytes = quotaBytes;
+        this.maxPairsPerUser = maxPairsPerUser;
+    }
+
+    // Default settings, for benchmarks and replay tooling that build the handler by hand
+    public RelayManager() {
+        this(DEFAULT_MAX_FRAME_BYTES, DEFAULT_RATE_BYTES_PER_SECOND, DEFAULT_QUOTA_BYTES, DEFAULT_MAX_PAIRS_PER_USER);
+    }
+
+    public enum Outcome { FORWARDED, THROTTLED, QUOTA_EXCEEDED, REJECTED }
+
+    public static class Pair {
+        public final int channel;
+        public final String userA;
+        public final String userB;
+        final WebSocketSession sessionA;
+        final WebSocketSession sessionB;
+        final TokenBucket aToB;
+        final TokenBucket bToA;
+        final AtomicLong bytesUsed = new AtomicLong();
+
+        Pair(int channel, String userA, WebSocketSession sessionA, String userB, WebSocketSession sessionB,
+             long rate, long burst) {
+            this.channel = channel;
+            this.userA = userA;
+            this.sessionA = sessionA;
+            this.userB = userB;
+            this.sessionB = sessionB;
+            this.aToB = new TokenBucket(rate, burst);
+            this.bToA = new TokenBucket(rate, burst);
+        }
+
+        public String peerOf(String userId) {
+            return userA.equals(userId) ? userB : userA;
+        }
+    }
+
+    static class TokenBucket {
+        private final long ratePerSecond;
+        private final long capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private long noticeUntil = lastRefill;
+
+        TokenBucket(long ratePerSecond, long capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        // Returns 0 if the bytes were taken, otherwise how long to wait (ms) before retrying
+        synchronized long tryConsume(int bytes) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerSecond / 1e9);
+            lastRefill = now;
+            if (tokens >= bytes) {
+                tokens -= bytes;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((bytes - tokens) * 1000.0 / ratePerSecond));
+        }
+
+        // True for the first throttled frame of a window; the sender is told once, not per frame
+        synchronized boolean claimNotice(long waitMs) {
+            long now = System.nanoTime();
+            if (now - noticeUntil < 0) return false;
+            noticeUntil = now + TimeUnit.MILLISECONDS.toNanos(waitMs);
+            return true;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Pair> pairs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Integer>> channelsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> pendingRequests = new ConcurrentHashMap<>(); // "from\0to" -> nanoTime
+    private final AtomicInteger nextChannel = new AtomicInteger(1);
+
+    private final AtomicLong bytesForwarded = new AtomicLong();
+    private final AtomicLong framesForwarded = new AtomicLong();
+    private final AtomicLong framesThrottled = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+
+    public int getMaxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    public long getRateBytesPerSecond() {
+        return rateBytesPerSecond;
+    }
+
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    public void recordRequest(String fromUserId, String toUserId) {
+        pendingRequests.put(fromUserId + '\0' + toUserId, System.nanoTime());
+    }
+
+    // Opens a pair if requester really asked acceptor for a relay recently; null otherwise
+    public Pair accept(String requesterId, WebSocketSession requester, String acceptorId, WebSocketSession acceptor) {
+        Long requestedAt = pendingRequests.remove(requesterId + '\0' + acceptorId);
+        if (requestedAt == null || System.nanoTime() - requestedAt > REQUEST_TTL_NANOS) return null;
+        if (pairCount(requesterId) >= maxPairsPerUser || pairCount(acceptorId) >= maxPairsPerUser) return null;
+
+        int channel = nextChannel.getAndIncrement();
+        Pair pair = new Pair(channel, requesterId, requester, acceptorId, acceptor,
+                rateBytesPerSecond, Math.max(rateBytesPerSecond, maxFrameBytes));
+        pairs.put(channel, pair);
+        channelsByUser.computeIfAbsent(requesterId, k -> ConcurrentHashMap.newKeySet()).add(channel);
+        channelsByUser.computeIfAbsent(acceptorId, k -> ConcurrentHashMap.newKeySet()).add(channel);
+        return pair;
+    }
+
+    public Pair get(int channel) {
+        return pairs.get(channel);
+    }
+
+    public Pair close(int channel) {
+        Pair pair = pairs.remove(channel);
+        if (pair != null) {
+            removeChannel(pair.userA, channel);
+            removeChannel(pair.userB, channel);
+        }
+        return pair;
+    }
+
+    // Closes every pair the user is part of (on disconnect) and returns them for notification
+    public List<Pair> closeAllFor(String userId) {
+        pendingRequests.keySet().removeIf(key -> key.startsWith(userId + '\0') || key.endsWith('\0' + userId));
+        Set<Integer> channels = channelsByUser.remove(userId);
+        List<Pair> closed = new ArrayList<>();
+        if (channels == null) return closed;
+        for (Integer channel : channels) {
+            Pair pair = close(channel);
+            if (pair != null) closed.add(pair);
+        }
+        return closed;
+    }
+
+    // On THROTTLED, retryAfterMs[0] is only set (non-zero) when the sender hasn't been told yet
+    public Outcome forward(String senderId, BinaryMessage message, long[] retryAfterMs, Pair[] pairOut) throws IOException {
+        ByteBuffer payload = message.getPayload();
+        int length = payload.remaining();
+        if (length < 4 || length > maxFrameBytes + 4) {
+            framesRejected.incrementAndGet();
+            return Outcome.REJECTED;
+        }
+
+        // Peek at the channel id without moving the buffer position
+        Pair pair = pairs.get(payload.getInt(payload.position()));
+        pairOut[0] = pair;
+        if (pair == null || !(pair.userA.equals(senderId) || pair.userB.equals(senderId))) {
+            framesRejected.incrementAndGet();
+            return Outcome.REJECTED;
+        }
+
+        boolean fromA = pair.userA.equals(senderId);
+        TokenBucket bucket = fromA ? pair.aToB : pair.bToA;
+        long wait = bucket.tryConsume(length);
+        if (wait > 0) {
+            framesThrottled.incrementAndGet();
+            retryAfterMs[0] = bucket.claimNotice(wait) ? wait : 0;
+            return Outcome.THROTTLED;
+        }
+        if (pair.bytesUsed.addAndGet(length) > quotaBytes) {
+            return Outcome.QUOTA_EXCEEDED;
+        }
+
+        WebSocketSession target = fromA ? pair.sessionB : pair.sessionA;
+        if (!target.isOpen()) {
+            framesRejected.incrementAndGet();
+            return Outcome.REJECTED;
+        }
+        // The target is a ConcurrentWebSocketSessionDecorator, which may queue the frame behind
+        // another thread's send; the container reuses the inbound buffer, so queue a copy
+        ByteBuffer copy = ByteBuffer.allocate(length).put(payload.duplicate());
+        target.sendMessage(new BinaryMessage(copy.flip()));
+        framesForwarded.incrementAndGet();
+        bytesForwarded.addAndGet(length);
+        return Outcome.FORWARDED;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "activePairs", pairs.size(),
+                "framesForwarded", framesForwarded.get(),
+                "bytesForwarded", bytesForwarded.get(),
+                "framesThrottled", framesThrottled.get(),
+                "framesRejected", framesRejected.get(),
+                "maxFrameBytes", maxFrameBytes,
+                "rateBytesPerSecond", rateBytesPerSecond,
+                "quotaBytes", quotaBytes);
+    }
+
+    private int pairCount(String userId) {
+        Set<Integer> channels = channelsByUser.get(userId);
+        return channels == null ? 0 : channels.size();
+    }
+
+    private void removeChannel(String userId, int channel) {
+        Set<Integer> channels = channelsByUser.get(userId);
+        if (channels != null) channels.remove(channel);
+    }
+}
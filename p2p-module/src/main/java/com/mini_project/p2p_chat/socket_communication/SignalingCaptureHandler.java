@@ -0,0 +1,58 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.io.IOException;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+// Writes every connect, inbound text or binary (relay) frame and disconnect to a
+// SignalingJournal before handing it to the wrapped handler. Capture problems are logged,
+// never propagated.
+public class SignalingCaptureHandler extends WebSocketHandlerDecorator {
+
+    private final SignalingJournal.Writer journal;
+
+    public SignalingCaptureHandler(WebSocketHandler delegate, SignalingJournal.Writer journal) {
+        super(delegate);
+        this.journal = journal;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        try {
+            journal.open(session.getId());
+        } catch (IOException e) {
+            System.err.println("Error capturing connection " + session.getId() + ": " + e.getMessage());
+        }
+        super.afterConnectionEstablished(session);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        try {
+            if (message instanceof TextMessage textMessage) {
+                journal.text(session.getId(), textMessage.getPayload());
+            } else if (message instanceof BinaryMessage binaryMessage) {
+                journal.binary(session.getId(), binaryMessage.getPayload());
+            }
+        } catch (IOException e) {
+            System.err.println("Error capturing frame from " + session.getId() + ": " + e.getMessage());
+        }
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        try {
+            journal.close(session.getId(), closeStatus.getCode());
+        } catch (IOException e) {
+            System.err.println("Error capturing close of " + session.getId() + ": " + e.getMessage());
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
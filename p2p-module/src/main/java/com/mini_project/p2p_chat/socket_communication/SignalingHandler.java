@@ -1,29 +1,94 @@
 package com.mini_project.p2p_chat.socket_communication;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mini_project.p2p_chat.group_chat.Service.GroupMembershipIndex;
+
+import jakarta.annotation.PreDestroy;
 
 @Component
 public class SignalingHandler extends TextWebSocketHandler {    private final ConcurrentHashMap<String, WebSocketSession> onlineUsers = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, String> sessionIdToUserId = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, String> userIdToName = new ConcurrentHashMap<>();
+    // Every send to a session goes through its decorator, so the join timer, relays and message
+    // handlers on other sessions never write to one socket at the same time. Keyed by session id.
+    private final ConcurrentHashMap<String, WebSocketSession> outboundSessions = new ConcurrentHashMap<>();
+    private final OnlineUserIndex onlineUserIndex = new OnlineUserIndex();
     
     // Video call room management
     private final ConcurrentHashMap<String, VideoRoomInfo> videoRooms = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, String> userIdToRoomId = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final GroupMembershipIndex membershipIndex;
+    private final RelayManager relayManager;
+    private final SignalingMailbox mailbox;
+
+    // Frames sent through sendToUser that are worth holding for a user who is briefly offline. The
+    // owner's side of the join queue isn't held: the whole queue is announced again on reconnect.
+    private static final Set<String> MAILBOX_TYPES = Set.of("join_approved", "join_rejected");
+
+    // Longest a single send may block, and how much may queue behind it before the session is closed
+    private static final int SEND_TIME_LIMIT_MS = 10000;
+    private static final int SEND_BUFFER_BYTES = 512 * 1024;
+
+    // Session attribute for in-process traffic (warm-up): the user can signal like anyone else but
+    // stays out of the online_users list, its broadcasts and the search index's change feed
+    public static final String QUIET_SESSION = "signaling.quiet";
+
+    // Join requests are queued per room and announced to the owner once per window
+    @Value("${video.join-batch-ms:200}")
+    private long joinBatchMs = 200;
+
+    @Value("${video.join-request-ttl-ms:120000}")
+    private long joinRequestTtlMs = 120000;
+
+    @Value("${video.max-pending-joins:500}")
+    private int maxPendingJoins = 500;
+
+    private final ScheduledExecutorService joinQueueTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "video-join-queue");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public SignalingHandler(GroupMembershipIndex membershipIndex, RelayManager relayManager, SignalingMailbox mailbox) {
+        this.membershipIndex = membershipIndex;
+        this.relayManager = relayManager;
+        this.mailbox = mailbox;
+    }
+
+    // Relay and mailbox settings fall back to their defaults (used by benchmarks and replay tooling)
+    public SignalingHandler(GroupMembershipIndex membershipIndex) {
+        this(membershipIndex, new RelayManager(), new SignalingMailbox());
+    }
+
     // Inner class to store video room info
     private static class VideoRoomInfo {
         public String id;
@@ -33,6 +98,12 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         public ConcurrentHashMap<String, String> participants = new ConcurrentHashMap<>(); // userId -> userName
         public long createdAt;
         public boolean isActive;
+        // Join requests waiting for the owner, oldest first, and those the owner hasn't been told about yet.
+        // Both guarded by the room.
+        public final LinkedHashMap<String, PendingJoin> pendingJoins = new LinkedHashMap<>();
+        public final List<PendingJoin> unannounced = new ArrayList<>();
+        public boolean announceScheduled;
+        public boolean expiryScheduled;
 
         public VideoRoomInfo(String id, String name, String ownerId, String ownerName) {
             this.id = id;
@@ -45,12 +116,43 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         }
     }
 
+    private static class PendingJoin {
+        final String userId;
+        String userName;
+        final long requestedAt;
+        long expiresAt;
+
+        PendingJoin(String userId, String userName, long requestedAt, long expiresAt) {
+            this.userId = userId;
+            this.userName = userName;
+            this.requestedAt = requestedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @PreDestroy
+    public void stopJoinQueue() {
+        joinQueueTimer.shutdownNow();
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {        
+        outboundSessions.remove(session.getId());
         String userId = sessionIdToUserId.remove(session.getId());
         if (userId != null) {
             onlineUsers.remove(userId);
             userIdToName.remove(userId);
+            onlineUserIndex.remove(userId);
+            membershipIndex.setOffline(userId);
+
+            // Tear down any data relays the user was part of
+            for (RelayManager.Pair pair : relayManager.closeAllFor(userId)) {
+                try {
+                    sendRelayClosed(pair.peerOf(userId), pair.channel, "peer_disconnected");
+                } catch (IOException e) {
+                    System.err.println("Error notifying relay peer: " + e.getMessage());
+                }
+            }
 
               // Handle video room cleanup if user was in a room
             String roomId = userIdToRoomId.remove(userId);
@@ -80,6 +182,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                             }
                             
                             videoRooms.remove(roomId);
+                            rejectPendingJoins(room, "Room closed");
                         }
                     } catch (IOException e) {
                         System.err.println("Error handling room cleanup: " + e.getMessage());
@@ -89,6 +192,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         }
 
         // Broadcast updated user list after a user disconnects
+        if (isQuiet(session)) return;
         try {
             broadcastOnlineUsers();
         } catch (IOException e) {
@@ -97,6 +201,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
     }    
       @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        session = outbound(session);
         try {
             JsonNode jsonNode = objectMapper.readTree(message.getPayload());
             String type = jsonNode.get("type").asText();
@@ -150,6 +255,17 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                 break;
             case "leave_room":
                 handleLeaveRoom(session, jsonNode);
+                break;
+
+            // Server-relayed data channel (fallback when WebRTC cannot connect)
+            case "relay_request":
+                handleRelayRequest(session, jsonNode);
+                break;
+            case "relay_accept":
+                handleRelayAccept(session, jsonNode);
+                break;
+            case "relay_close":
+                handleRelayClose(session, jsonNode);
                 break;            default:
                 System.out.println("Unknown message type: " + type);
                 break;
@@ -161,26 +277,174 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         }
     }
 
+    // Binary frames are relayed data-channel traffic: [int32 channel][opaque bytes]
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        session = outbound(session);
+        String userId = sessionIdToUserId.get(session.getId());
+        if (userId == null) return;
+
+        long[] retryAfterMs = new long[1];
+        RelayManager.Pair[] pair = new RelayManager.Pair[1];
+        RelayManager.Outcome outcome = relayManager.forward(userId, message, retryAfterMs, pair);
+        switch (outcome) {
+            case THROTTLED:
+                // Frame dropped; the sender should back off and resend. Told once per throttle window.
+                if (retryAfterMs[0] == 0) break;
+                sendToUser(userId, createMessage("relay_throttled", objectMapper.createObjectNode()
+                        .put("channel", pair[0].channel)
+                        .put("retryAfterMs", retryAfterMs[0])));
+                break;
+            case QUOTA_EXCEEDED:
+                if (relayManager.close(pair[0].channel) != null) {
+                    sendRelayClosed(pair[0].userA, pair[0].channel, "quota_exceeded");
+                    sendRelayClosed(pair[0].userB, pair[0].channel, "quota_exceeded");
+                }
+                break;
+            case REJECTED:
+                System.out.println("Dropped relay frame from " + userId + " (" + message.getPayloadLength() + " bytes)");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void handleRelayRequest(WebSocketSession session, JsonNode jsonNode) throws IOException {
+        String fromUserId = jsonNode.get("fromUserId").asText();
+        String toUserId = jsonNode.get("toUserId").asText();
+        if (!fromUserId.equals(sessionIdToUserId.get(session.getId()))) {
+            System.out.println("Ignoring relay request for a user not bound to this session: " + fromUserId);
+            return;
+        }
+
+        WebSocketSession toSession = onlineUsers.get(toUserId);
+        if (toSession != null && toSession.isOpen()) {
+            relayManager.recordRequest(fromUserId, toUserId);
+            toSession.sendMessage(new TextMessage(jsonNode.toString()));
+        }
+    }
+
+    // fromUserId accepts the relay that toUserId asked for
+    private void handleRelayAccept(WebSocketSession session, JsonNode jsonNode) throws IOException {
+        String acceptorId = jsonNode.get("fromUserId").asText();
+        String requesterId = jsonNode.get("toUserId").asText();
+        if (!acceptorId.equals(sessionIdToUserId.get(session.getId()))) {
+            System.out.println("Ignoring relay accept for a user not bound to this session: " + acceptorId);
+            return;
+        }
+
+        WebSocketSession requesterSession = onlineUsers.get(requesterId);
+        RelayManager.Pair pair = requesterSession == null || !requesterSession.isOpen() ? null
+                : relayManager.accept(requesterId, requesterSession, acceptorId, session);
+        if (pair == null) {
+            sendToUser(acceptorId, createMessage("relay_error", objectMapper.createObjectNode()
+                    .put("peerUserId", requesterId)
+                    .put("message", "No pending relay request or relay limit reached")));
+            return;
+        }
+
+        sendRelayReady(requesterId, acceptorId, pair.channel);
+        sendRelayReady(acceptorId, requesterId, pair.channel);
+        System.out.println("Relay " + pair.channel + " opened between " + requesterId + " and " + acceptorId);
+    }
+
+    private void handleRelayClose(WebSocketSession session, JsonNode jsonNode) throws IOException {
+        String userId = sessionIdToUserId.get(session.getId());
+        int channel = jsonNode.get("channel").asInt();
+        RelayManager.Pair pair = relayManager.get(channel);
+        if (userId == null || pair == null || !(userId.equals(pair.userA) || userId.equals(pair.userB))) return;
+
+        if (relayManager.close(channel) != null) {
+            sendRelayClosed(pair.peerOf(userId), channel, "closed_by_peer");
+        }
+    }
+
+    private void sendRelayReady(String userId, String peerUserId, int channel) throws IOException {
+        sendToUser(userId, createMessage("relay_ready", objectMapper.createObjectNode()
+                .put("channel", channel)
+                .put("peerUserId", peerUserId)
+                .put("maxFrameBytes", relayManager.getMaxFrameBytes())
+                .put("rateBytesPerSecond", relayManager.getRateBytesPerSecond())
+                .put("quotaBytes", relayManager.getQuotaBytes())));
+    }
+
+    private void sendRelayClosed(String userId, int channel, String reason) throws IOException {
+        sendToUser(userId, createMessage("relay_closed", objectMapper.createObjectNode()
+                .put("channel", channel)
+                .put("reason", reason)));
+    }
+
+    public RelayManager getRelayManager() {
+        return relayManager;
+    }
+
+    public SignalingMailbox getMailbox() {
+        return mailbox;
+    }
+
     private void handleConnectionAccepted(WebSocketSession session, JsonNode jsonNode) throws IOException {
         String toUserId = jsonNode.get("toUserId").asText();
         WebSocketSession toSession = onlineUsers.get(toUserId);
         if (toSession != null && toSession.isOpen()) {
             toSession.sendMessage(new TextMessage(jsonNode.toString()));
+        } else {
+            holdForOffline(toUserId, "connection_accepted", jsonNode.path("fromUserId").asText(null), jsonNode);
         }
     }
 
     private void handleUserOnline(WebSocketSession session, JsonNode jsonNode) throws IOException {
         String userId = jsonNode.get("userId").asText();
         String userName = jsonNode.get("userName").asText();
+        registerOnlineUser(userId, userName, session);
+
+        // Whatever arrived for this user while they were between connections
+        for (String frame : mailbox.take(userId)) {
+            session.sendMessage(new TextMessage(frame));
+        }
+        announceJoinQueueTo(userId);
+
+        if (isQuiet(session)) {
+            session.sendMessage(new TextMessage(onlineUsersMessage().toString()));
+            return;
+        }
+        // Broadcast updated list of online users to all connected clients
+        broadcastOnlineUsers();
+    }
+
+    // Package-private so benchmarks can seed large populations without a broadcast per user
+    void registerOnlineUser(String userId, String userName, WebSocketSession session) {
+        session = outbound(session);
         onlineUsers.put(userId, session);
         sessionIdToUserId.put(session.getId(), userId);
         userIdToName.put(userId, userName);
+        if (!isQuiet(session)) onlineUserIndex.put(userId, userName);
+        membershipIndex.setOnline(userId);
+    }
 
-        // Broadcast updated list of online users to all connected clients
-        broadcastOnlineUsers();
+    private WebSocketSession outbound(WebSocketSession session) {
+        return outboundSessions.computeIfAbsent(session.getId(),
+                id -> new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_BYTES));
+    }
+
+    private static boolean isQuiet(WebSocketSession session) {
+        return Boolean.TRUE.equals(session.getAttributes().get(QUIET_SESSION));
+    }
+
+    void broadcastOnlineUsers() throws IOException {
+        ObjectNode onlineUsersMessage = onlineUsersMessage();
+
+        // Send the message to all users
+        for (WebSocketSession webSocketSession : onlineUsers.values()) {
+            if (isQuiet(webSocketSession)) continue;
+            try {
+                webSocketSession.sendMessage(new TextMessage(onlineUsersMessage.toString()));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
-    private void broadcastOnlineUsers() throws IOException {
+    private ObjectNode onlineUsersMessage() {
         // Create a new message to send to all connected clients
         ObjectNode onlineUsersMessage = objectMapper.createObjectNode();
         onlineUsersMessage.put("type", "online_users");
@@ -189,7 +453,9 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         ArrayNode usersArray = objectMapper.createArrayNode();
 
         // Add each user as a JsonNode to the array with both ID and name
-        for (String userId : onlineUsers.keySet()) {
+        for (Map.Entry<String, WebSocketSession> entry : onlineUsers.entrySet()) {
+            if (isQuiet(entry.getValue())) continue;
+            String userId = entry.getKey();
             ObjectNode userNode = objectMapper.createObjectNode();
             userNode.put("id", userId);
             userNode.put("name", userIdToName.get(userId));
@@ -198,15 +464,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
 
         // Attach the array to the message
         onlineUsersMessage.set("users", usersArray);
-
-        // Send the message to all users
-        for (WebSocketSession webSocketSession : onlineUsers.values()) {
-            try {
-                webSocketSession.sendMessage(new TextMessage(onlineUsersMessage.toString()));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        return onlineUsersMessage;
     }
 
     private void handleRequestConnection(WebSocketSession session, JsonNode jsonNode) throws IOException {
@@ -218,6 +476,8 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         WebSocketSession toSession = onlineUsers.get(toUserId);
         if (toSession != null && toSession.isOpen()) {
             toSession.sendMessage(new TextMessage(jsonNode.toString()));
+        } else {
+            holdForOffline(toUserId, "connection_request", jsonNode.path("fromUserId").asText(null), jsonNode);
         }
     }    private void handleOffer(WebSocketSession session, JsonNode jsonNode) throws IOException {
         try {
@@ -258,7 +518,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                 targetSession.sendMessage(new TextMessage(jsonNode.toString()));
                 System.out.println("Forwarded offer to user: " + targetId);
             } else {
-                System.out.println("User " + targetId + " is not online or session is closed.");
+                holdForOffline(targetId, "offer", fromId, jsonNode);
             }
         } catch (Exception e) {
             System.err.println("Error handling offer: " + e.getMessage());
@@ -303,7 +563,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                 targetSession.sendMessage(new TextMessage(jsonNode.toString()));
                 System.out.println("Forwarded answer to user: " + targetId);
             } else {
-                System.out.println("User " + targetId + " is not online or session is closed.");
+                holdForOffline(targetId, "answer", fromId, jsonNode);
             }
         } catch (Exception e) {
             System.err.println("Error handling answer: " + e.getMessage());
@@ -348,7 +608,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                 targetSession.sendMessage(new TextMessage(jsonNode.toString()));
                 System.out.println("Forwarded ICE candidate to user: " + targetId);
             } else {
-                System.out.println("User " + targetId + " is not online or session is closed.");
+                holdForOffline(targetId, "ice_candidate", fromId, jsonNode);
             }
         } catch (Exception e) {
             System.err.println("Error handling ICE candidate: " + e.getMessage());
@@ -360,6 +620,36 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         return onlineUsers.keySet();
     }
 
+    public OnlineUserIndex getOnlineUserIndex() {
+        return onlineUserIndex;
+    }
+
+    // True while the user on this connection is in a video room that is still running
+    public boolean isInActiveRoom(String sessionId) {
+        String userId = sessionIdToUserId.get(sessionId);
+        String roomId = userId == null ? null : userIdToRoomId.get(userId);
+        VideoRoomInfo room = roomId == null ? null : videoRooms.get(roomId);
+        return room != null && room.isActive;
+    }
+
+    // Tells every running room this node is going away and by when, so the call can finish
+    // or move to another node before its participants are disconnected
+    public int notifyRoomsDraining(long deadline) {
+        int notified = 0;
+        for (VideoRoomInfo room : videoRooms.values()) {
+            if (!room.isActive) continue;
+            try {
+                broadcastToRoom(room.id, createMessage("room_draining", objectMapper.createObjectNode()
+                        .put("roomId", room.id)
+                        .put("deadline", deadline)), null);
+                notified++;
+            } catch (IOException e) {
+                System.err.println("Error notifying room " + room.id + " of drain: " + e.getMessage());
+            }
+        }
+        return notified;
+    }
+
     // Video call handler methods
     private void handleCreateRoom(WebSocketSession session, JsonNode jsonNode) throws IOException {
         String roomId = jsonNode.get("data").get("roomId").asText();
@@ -381,6 +671,8 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         ));
     }
 
+    // Queued, not forwarded: the owner hears about new requests once per join-batch-ms window.
+    // A repeated request from a user already in the queue keeps its place and is only extended.
     private void handleRequestJoin(WebSocketSession session, JsonNode jsonNode) throws IOException {
         String roomId = jsonNode.get("data").get("roomId").asText();
         String userId = jsonNode.get("data").get("userId").asText();
@@ -388,82 +680,310 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
 
         VideoRoomInfo room = videoRooms.get(roomId);
         if (room == null || !room.isActive) {
-            sendToUser(userId, createMessage("join_rejected", 
-                objectMapper.createObjectNode()
-                    .put("roomId", roomId)
-                    .put("reason", "Room not found or inactive")
-            ));
+            sendToUser(userId, createJoinRejected(roomId, "Room not found or inactive"));
+            return;
+        }
+        if (room.participants.containsKey(userId)) {
             return;
         }
 
-        // Send join request to room owner
-        ObjectNode requestData = objectMapper.createObjectNode();
-        requestData.put("roomId", roomId);
-        requestData.put("userId", userId);
-        requestData.put("userName", userName);
-        requestData.put("timestamp", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        boolean full = false;
+        boolean scheduleAnnounce = false;
+        boolean scheduleExpiry = false;
+        synchronized (room) {
+            PendingJoin existing = room.pendingJoins.get(userId);
+            if (existing != null) {
+                existing.userName = userName;
+                existing.expiresAt = now + joinRequestTtlMs;
+            } else if (room.pendingJoins.size() >= maxPendingJoins) {
+                full = true;
+            } else {
+                PendingJoin join = new PendingJoin(userId, userName, now, now + joinRequestTtlMs);
+                room.pendingJoins.put(userId, join);
+                room.unannounced.add(join);
+                if (!room.announceScheduled) {
+                    room.announceScheduled = true;
+                    scheduleAnnounce = true;
+                }
+                if (!room.expiryScheduled) {
+                    room.expiryScheduled = true;
+                    scheduleExpiry = true;
+                }
+            }
+        }
 
-        sendToUser(room.ownerId, createMessage("join_request", requestData));
-        
-        System.out.println("Join request sent from " + userName + " to room " + roomId);
-    }    
-    
+        if (full) {
+            sendToUser(userId, createJoinRejected(roomId, "Too many pending join requests"));
+            return;
+        }
+        if (scheduleAnnounce) {
+            joinQueueTimer.schedule(() -> announceJoinRequests(roomId), joinBatchMs, TimeUnit.MILLISECONDS);
+        }
+        if (scheduleExpiry) {
+            joinQueueTimer.schedule(() -> expireJoinRequests(roomId), joinRequestTtlMs, TimeUnit.MILLISECONDS);
+        }
+
+        System.out.println("Join request from " + userName + " queued for room " + roomId);
+    }
+
+    // One join_request for a single new request (what older clients understand), otherwise one
+    // join_requests frame listing all of them
+    private void announceJoinRequests(String roomId) {
+        VideoRoomInfo room = videoRooms.get(roomId);
+        if (room == null) return;
+
+        List<PendingJoin> batch = new ArrayList<>();
+        int pendingCount;
+        synchronized (room) {
+            room.announceScheduled = false;
+            for (PendingJoin join : room.unannounced) {
+                // Skip requests approved, rejected or expired within the window
+                if (room.pendingJoins.get(join.userId) == join) batch.add(join);
+            }
+            room.unannounced.clear();
+            pendingCount = room.pendingJoins.size();
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            if (batch.size() == 1) {
+                sendToUser(room.ownerId, createMessage("join_request",
+                        createJoinRequestData(roomId, batch.get(0)).put("pendingCount", pendingCount)));
+            } else {
+                ObjectNode data = objectMapper.createObjectNode();
+                data.put("roomId", roomId);
+                data.put("pendingCount", pendingCount);
+                ArrayNode requests = data.putArray("requests");
+                for (PendingJoin join : batch) {
+                    requests.add(createJoinRequestData(roomId, join));
+                }
+                sendToUser(room.ownerId, createMessage("join_requests", data));
+            }
+            System.out.println("Announced " + batch.size() + " join requests for room " + roomId + " (" + pendingCount + " pending)");
+        } catch (Exception e) {
+            System.err.println("Error announcing join requests for room " + roomId + ": " + e.getMessage());
+        }
+    }
+
+    // The full queue as one join_requests frame with "replace": true, for an owner who reconnects
+    // and may have missed announcements or expiries while away
+    private void announceJoinQueueTo(String userId) {
+        String roomId = userIdToRoomId.get(userId);
+        VideoRoomInfo room = roomId == null ? null : videoRooms.get(roomId);
+        if (room == null || !userId.equals(room.ownerId)) return;
+
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("roomId", roomId);
+        data.put("replace", true);
+        ArrayNode requests = data.putArray("requests");
+        synchronized (room) {
+            if (room.pendingJoins.isEmpty()) return;
+            data.put("pendingCount", room.pendingJoins.size());
+            for (PendingJoin join : room.pendingJoins.values()) {
+                requests.add(createJoinRequestData(roomId, join));
+            }
+            // Everything is in this frame; nothing left for the batch timer to announce
+            room.unannounced.clear();
+        }
+        try {
+            sendToUser(userId, createMessage("join_requests", data));
+        } catch (Exception e) {
+            System.err.println("Error announcing join queue for room " + roomId + ": " + e.getMessage());
+        }
+    }
+
+    // One sweep per room: runs when the oldest request is due and reschedules itself for the next one.
+    // Refreshed requests have moved their deadline and are simply picked up by a later sweep.
+    private void expireJoinRequests(String roomId) {
+        VideoRoomInfo room = videoRooms.get(roomId);
+        if (room == null) return;
+
+        long now = System.currentTimeMillis();
+        List<PendingJoin> expired = new ArrayList<>();
+        long nextExpiry = Long.MAX_VALUE;
+        synchronized (room) {
+            Iterator<PendingJoin> it = room.pendingJoins.values().iterator();
+            while (it.hasNext()) {
+                PendingJoin join = it.next();
+                if (join.expiresAt <= now) {
+                    expired.add(join);
+                    it.remove();
+                } else {
+                    nextExpiry = Math.min(nextExpiry, join.expiresAt);
+                }
+            }
+            room.expiryScheduled = nextExpiry != Long.MAX_VALUE;
+        }
+        if (nextExpiry != Long.MAX_VALUE) {
+            joinQueueTimer.schedule(() -> expireJoinRequests(roomId), nextExpiry - now, TimeUnit.MILLISECONDS);
+        }
+        if (expired.isEmpty()) return;
+
+        try {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("roomId", roomId);
+            ArrayNode userIds = data.putArray("userIds");
+            for (PendingJoin join : expired) {
+                userIds.add(join.userId);
+                sendToUser(join.userId, createJoinRejected(roomId, "Join request expired"));
+            }
+            // Lets the owner drop them from the list of requests on screen
+            sendToUser(room.ownerId, createMessage("join_requests_expired", data));
+        } catch (Exception e) {
+            System.err.println("Error expiring join requests for room " + roomId + ": " + e.getMessage());
+        }
+    }
+
+    // data.userId for one user or data.userIds for many; only users with a pending request are admitted.
+    // Each approved user is told about everyone already in the room plus those approved before them in
+    // this batch (they will get offers from those), and the room gets one roster update for the batch.
     private void handleApproveJoin(WebSocketSession session, JsonNode jsonNode) throws IOException {
-        String roomId = jsonNode.get("data").get("roomId").asText();
-        String userId = jsonNode.get("data").get("userId").asText();
+        JsonNode dataNode = jsonNode.get("data");
+        String roomId = dataNode.get("roomId").asText();
 
         VideoRoomInfo room = videoRooms.get(roomId);
-        if (room == null || !room.isActive) {
+        if (room == null || !room.isActive || !room.ownerId.equals(sessionIdToUserId.get(session.getId()))) {
             return;
         }
 
-        // Add user to room
-        String userName = userIdToName.get(userId);
-        room.participants.put(userId, userName);
-        userIdToRoomId.put(userId, roomId);
+        List<PendingJoin> approved = new ArrayList<>();
+        synchronized (room) {
+            for (String userId : targetUserIds(dataNode)) {
+                PendingJoin join = room.pendingJoins.remove(userId);
+                if (join != null) approved.add(join);
+            }
+        }
+        if (approved.isEmpty()) {
+            return;
+        }
 
-        // Create existing participants array for the new user
-        ArrayNode existingParticipants = objectMapper.createArrayNode();
-        for (String participantId : room.participants.keySet()) {
-            if (!participantId.equals(userId)) { // Don't include the new user themselves
-                ObjectNode participant = objectMapper.createObjectNode();
-                participant.put("userId", participantId);
-                participant.put("userName", room.participants.get(participantId));
-                participant.put("isOwner", participantId.equals(room.ownerId));
-                existingParticipants.add(participant);
+        ArrayNode roster = objectMapper.createArrayNode();
+        for (Map.Entry<String, String> participant : room.participants.entrySet()) {
+            roster.add(createParticipant(room, participant.getKey(), participant.getValue()));
+        }
+
+        for (PendingJoin join : approved) {
+            String userName = join.userName != null ? join.userName : userIdToName.get(join.userId);
+            addRoomParticipant(room, join.userId, userName);
+
+            // Notify the approved user with room info and existing participants
+            ObjectNode joinApprovedData = objectMapper.createObjectNode();
+            joinApprovedData.put("roomId", roomId);
+            joinApprovedData.put("roomName", room.name);
+            joinApprovedData.put("ownerId", room.ownerId);
+            joinApprovedData.put("ownerName", room.ownerName);
+            joinApprovedData.set("existingParticipants", roster.deepCopy());
+            sendToUser(join.userId, createMessage("join_approved", joinApprovedData));
+
+            roster.add(createParticipant(room, join.userId, userName));
+        }
+
+        if (approved.size() == 1) {
+            // Notify all OTHER participants about new user (exclude the new user themselves)
+            PendingJoin join = approved.get(0);
+            broadcastToRoom(roomId, createMessage("user_joined",
+                objectMapper.createObjectNode()
+                    .put("userId", join.userId)
+                    .put("userName", room.participants.get(join.userId))
+                    .put("roomId", roomId)
+            ), join.userId);
+        } else {
+            // Everyone gets the whole batch; clients skip themselves and users they already know about
+            ObjectNode joined = objectMapper.createObjectNode();
+            joined.put("roomId", roomId);
+            ArrayNode users = joined.putArray("users");
+            for (PendingJoin join : approved) {
+                users.addObject()
+                        .put("userId", join.userId)
+                        .put("userName", room.participants.get(join.userId));
             }
+            broadcastToRoom(roomId, createMessage("users_joined", joined), null);
         }
 
-        // Notify the approved user with room info and existing participants
-        ObjectNode joinApprovedData = objectMapper.createObjectNode();
-        joinApprovedData.put("roomId", roomId);
-        joinApprovedData.put("roomName", room.name);
-        joinApprovedData.put("ownerId", room.ownerId);
-        joinApprovedData.put("ownerName", room.ownerName);
-        joinApprovedData.set("existingParticipants", existingParticipants);        sendToUser(userId, createMessage("join_approved", joinApprovedData));
+        System.out.println(approved.size() + " users approved to join room " + roomId + ", now " + room.participants.size() + " participants");
+    }
 
-        // Notify all OTHER participants about new user (exclude the new user themselves)
-        broadcastToRoom(roomId, createMessage("user_joined", 
-            objectMapper.createObjectNode()
-                .put("userId", userId)
-                .put("userName", userName)
-                .put("roomId", roomId)
-        ), userId); // Exclude the new user from this broadcast
+    private void addRoomParticipant(VideoRoomInfo room, String userId, String userName) {
+        room.participants.put(userId, userName);
+        userIdToRoomId.put(userId, room.id);
+    }
 
-        System.out.println("User " + userName + " approved to join room " + roomId + " with " + existingParticipants.size() + " existing participants");
+    // Package-private so benchmarks can fill a room without an approve_join round per user
+    void addRoomParticipant(String roomId, String userId, String userName) {
+        VideoRoomInfo room = videoRooms.get(roomId);
+        if (room != null) {
+            addRoomParticipant(room, userId, userName);
+        }
     }
 
+    // data.userId or data.userIds; only users with a pending request are told
     private void handleRejectJoin(WebSocketSession session, JsonNode jsonNode) throws IOException {
-        String roomId = jsonNode.get("data").get("roomId").asText();
-        String userId = jsonNode.get("data").get("userId").asText();
+        JsonNode dataNode = jsonNode.get("data");
+        String roomId = dataNode.get("roomId").asText();
 
-        sendToUser(userId, createMessage("join_rejected", 
-            objectMapper.createObjectNode()
+        VideoRoomInfo room = videoRooms.get(roomId);
+        if (room == null || !room.ownerId.equals(sessionIdToUserId.get(session.getId()))) {
+            return;
+        }
+
+        List<String> rejected = new ArrayList<>();
+        synchronized (room) {
+            for (String userId : targetUserIds(dataNode)) {
+                if (room.pendingJoins.remove(userId) != null) rejected.add(userId);
+            }
+        }
+        for (String userId : rejected) {
+            sendToUser(userId, createJoinRejected(roomId, "Request rejected by room owner"));
+        }
+
+        System.out.println(rejected.size() + " join requests rejected in room " + roomId);
+    }
+
+    private void rejectPendingJoins(VideoRoomInfo room, String reason) throws IOException {
+        List<PendingJoin> pending;
+        synchronized (room) {
+            pending = new ArrayList<>(room.pendingJoins.values());
+            room.pendingJoins.clear();
+            room.unannounced.clear();
+        }
+        for (PendingJoin join : pending) {
+            sendToUser(join.userId, createJoinRejected(room.id, reason));
+        }
+    }
+
+    private static Set<String> targetUserIds(JsonNode dataNode) {
+        Set<String> userIds = new LinkedHashSet<>();
+        if (dataNode.has("userId") && !dataNode.get("userId").isNull()) {
+            userIds.add(dataNode.get("userId").asText());
+        }
+        for (JsonNode userId : dataNode.path("userIds")) {
+            userIds.add(userId.asText());
+        }
+        return userIds;
+    }
+
+    private ObjectNode createJoinRequestData(String roomId, PendingJoin join) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("roomId", roomId);
+        data.put("userId", join.userId);
+        data.put("userName", join.userName);
+        data.put("timestamp", join.requestedAt);
+        return data;
+    }
+
+    private ObjectNode createJoinRejected(String roomId, String reason) {
+        return createMessage("join_rejected", objectMapper.createObjectNode()
                 .put("roomId", roomId)
-                .put("reason", "Request rejected by room owner")
-        ));
+                .put("reason", reason));
+    }
 
-        System.out.println("Join request rejected for user " + userId + " in room " + roomId);
+    private ObjectNode createParticipant(VideoRoomInfo room, String userId, String userName) {
+        ObjectNode participant = objectMapper.createObjectNode();
+        participant.put("userId", userId);
+        participant.put("userName", userName);
+        participant.put("isOwner", userId.equals(room.ownerId));
+        return participant;
     }    private void handleToggleMedia(WebSocketSession session, JsonNode jsonNode) throws IOException {
         JsonNode dataNode = jsonNode.get("data");
         
@@ -530,9 +1050,10 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                     .put("roomId", roomId)
             ), userId);
             
-            // If room is empty, remove it
+            // If room is empty, remove it; nobody is left to answer queued requests
             if (room.participants.isEmpty()) {
                 videoRooms.remove(roomId);
+                rejectPendingJoins(room, "Room closed");
                 System.out.println("Room " + roomId + " removed (empty)");
             }
             
@@ -550,12 +1071,33 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         if (session != null && session.isOpen()) {
             session.sendMessage(new TextMessage(message.toString()));
             System.out.println("Message sent successfully to " + userId);
+        } else if (MAILBOX_TYPES.contains(message.path("type").asText())) {
+            String type = message.path("type").asText();
+            JsonNode data = message.path("data");
+            mailbox.hold(userId, type + "|" + data.path("roomId").asText() + "|" + data.path("userId").asText(), null, message.toString());
+            System.out.println("Held " + type + " for offline user " + userId);
         } else {
             System.out.println("Cannot send message - user not found or session closed: " + userId);
         }
     }
 
-    private void broadcastToRoom(String roomId, ObjectNode message, String excludeUserId) throws IOException {
+    // Keeps a frame for a target that is not connected right now. A newer frame of the same type from
+    // the same sender replaces the held one; ICE candidates from a sender are merged into one entry.
+    private void holdForOffline(String targetId, String type, String fromId, JsonNode frame) {
+        String mergeKey = null;
+        if (type.equals("ice_candidate")) {
+            // Both client formats: { candidate: {candidate: "..."} } and { data: { candidate: ... } }
+            JsonNode candidate = frame.has("candidate") ? frame.get("candidate") : frame.path("data").path("candidate");
+            mergeKey = candidate.isObject() ? candidate.path("candidate").asText() : candidate.asText();
+        }
+        if (mailbox.hold(targetId, type + "|" + fromId, mergeKey, frame.toString())) {
+            System.out.println("Held " + type + " from " + fromId + " for offline user " + targetId);
+        } else {
+            System.out.println("User " + targetId + " is not online or session is closed.");
+        }
+    }
+
+    void broadcastToRoom(String roomId, ObjectNode message, String excludeUserId) throws IOException {
         VideoRoomInfo room = videoRooms.get(roomId);
         if (room == null) return;
 
@@ -567,7 +1109,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         }
     }
 
-    private ObjectNode createMessage(String type, ObjectNode data) {
+    ObjectNode createMessage(String type, ObjectNode data) {
         ObjectNode message = objectMapper.createObjectNode();
         message.put("type", type);
         message.set("data", data);
@@ -579,6 +1121,9 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
         System.out.println("WebSocket connection established: " + session.getId());
         System.out.println("Session URI: " + session.getUri());
         System.out.println("Session remote address: " + session.getRemoteAddress());
+        // Room for a full relay frame plus its channel header
+        session.setBinaryMessageSizeLimit(relayManager.getMaxFrameBytes() + 4);
+        outbound(session);
         super.afterConnectionEstablished(session);
     }
 
@@ -594,7 +1139,7 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
                 toSession.sendMessage(new TextMessage(jsonNode.toString()));
                 System.out.println("Forwarded connection rejection to user: " + toUserId);
             } else {
-                System.out.println("User " + toUserId + " is not online or session is closed.");
+                holdForOffline(toUserId, "connection_rejected", fromUserId, jsonNode);
             }
         } catch (Exception e) {
             System.err.println("Error handling connection rejection: " + e.getMessage());
@@ -608,6 +1153,8 @@ public class SignalingHandler extends TextWebSocketHandler {    private final Co
             String toUserId = jsonNode.get("toUserId").asText();
             
             System.out.println("Logout notification from " + fromUserId + " to " + toUserId);
+            // Nothing held for a user who logged out on purpose is going to be wanted
+            mailbox.discard(fromUserId);
             
             WebSocketSession toSession = onlineUsers.get(toUserId);
             if (toSession != null && toSession.isOpen()) {
@@ -0,0 +1,228 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only binary journal of inbound /ws/p2p traffic.
+//
+//   header: "SGJ1" | int64 wall-clock start (epoch millis)
+//   record: type byte | varint nanos since previous record | varint session index | body
+//     OPEN  body: varint length | session id (UTF-8)   -- assigns the next session index
+//     TEXT   body: varint length | payload (UTF-8)
+//     CLOSE  body: varint close code
+//     BINARY body: varint length | payload bytes (relay frames: int32 channel | opaque bytes)
+//
+// Timestamps come from System.nanoTime so they are monotonic; sessions are written once
+// and referenced by index afterwards, which keeps per-frame overhead to a few bytes.
+public final class SignalingJournal {
+
+    static final byte[] MAGIC = {'S', 'G', 'J', '1'};
+
+    public static final byte OPEN = 1;
+    public static final byte TEXT = 2;
+    public static final byte CLOSE = 3;
+    public static final byte BINARY = 4;
+
+    public static final class Record {
+        public final byte type;
+        public final long offsetNanos;  // since the first record of the journal
+        public final String sessionId;
+        public final String payload;    // TEXT only
+        public final int closeCode;     // CLOSE only
+        public final byte[] data;       // BINARY only
+
+        Record(byte type, long offsetNanos, String sessionId, String payload, int closeCode) {
+            this(type, offsetNanos, sessionId, payload, closeCode, null);
+        }
+
+        Record(byte type, long offsetNanos, String sessionId, String payload, int closeCode, byte[] data) {
+            this.type = type;
+            this.offsetNanos = offsetNanos;
+            this.sessionId = sessionId;
+            this.payload = payload;
+            this.closeCode = closeCode;
+            this.data = data;
+        }
+    }
+
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final long maxBytes;
+        private final Map<String, Integer> sessionIndex = new HashMap<>();
+        private long lastNanos = -1;
+        private long written;
+        private boolean full;
+
+        public Writer(Path file, long maxBytes) throws IOException {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+            this.maxBytes = maxBytes;
+            out.write(MAGIC);
+            out.writeLong(System.currentTimeMillis());
+            written = MAGIC.length + 8;
+        }
+
+        public synchronized void open(String sessionId) throws IOException {
+            if (full || sessionIndex.containsKey(sessionId)) return;
+            int index = sessionIndex.size();
+            sessionIndex.put(sessionId, index);
+            writeHeader(OPEN, index);
+            writeBytes(sessionId.getBytes(StandardCharsets.UTF_8));
+            checkLimit();
+        }
+
+        public synchronized void text(String sessionId, String payload) throws IOException {
+            Integer index = sessionIndex.get(sessionId);
+            if (full || index == null) return;
+            writeHeader(TEXT, index);
+            writeBytes(payload.getBytes(StandardCharsets.UTF_8));
+            checkLimit();
+        }
+
+        // Leaves the buffer's position alone; the handler still has to read it
+        public synchronized void binary(String sessionId, ByteBuffer payload) throws IOException {
+            Integer index = sessionIndex.get(sessionId);
+            if (full || index == null) return;
+            writeHeader(BINARY, index);
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            writeBytes(bytes);
+            checkLimit();
+        }
+
+        public synchronized void close(String sessionId, int closeCode) throws IOException {
+            Integer index = sessionIndex.get(sessionId);
+            if (full || index == null) return;
+            writeHeader(CLOSE, index);
+            writeVarint(closeCode);
+            checkLimit();
+        }
+
+        public synchronized void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+
+        private void writeHeader(byte type, int index) throws IOException {
+            long now = System.nanoTime();
+            long delta = lastNanos < 0 ? 0 : now - lastNanos;
+            lastNanos = now;
+            out.writeByte(type);
+            written++;
+            writeVarint(delta);
+            writeVarint(index);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeVarint(bytes.length);
+            out.write(bytes);
+            written += bytes.length;
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+                written++;
+            }
+            out.writeByte((int) value);
+            written++;
+        }
+
+        // Stop capturing (but keep what we have) once the size cap is reached
+        private void checkLimit() throws IOException {
+            if (maxBytes > 0 && written >= maxBytes) {
+                full = true;
+                out.flush();
+                System.err.println("Signaling capture stopped: journal reached " + written + " bytes");
+            }
+        }
+    }
+
+    // Reads a whole journal. A record cut short by a crash ends the journal quietly.
+    public static List<Record> read(Path file) throws IOException {
+        List<Record> records = new ArrayList<>();
+        List<String> sessions = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) throw new IOException("Not a signaling journal: " + file);
+            }
+            in.readLong(); // wall-clock start, informational
+
+            long offset = 0;
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                try {
+                    offset += readVarint(in);
+                    int index = (int) readVarint(in);
+                    switch (type) {
+                        case OPEN:
+                            sessions.add(new String(readBytes(in), StandardCharsets.UTF_8));
+                            records.add(new Record(OPEN, offset, sessions.get(index), null, 0));
+                            break;
+                        case TEXT:
+                            records.add(new Record(TEXT, offset, sessions.get(index),
+                                    new String(readBytes(in), StandardCharsets.UTF_8), 0));
+                            break;
+                        case CLOSE:
+                            records.add(new Record(CLOSE, offset, sessions.get(index), null, (int) readVarint(in)));
+                            break;
+                        case BINARY:
+                            records.add(new Record(BINARY, offset, sessions.get(index), null, 0, readBytes(in)));
+                            break;
+                        default:
+                            throw new IOException("Corrupt journal record type " + type + " in " + file);
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        return records;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+
+    private SignalingJournal() {
+    }
+}
@@ -0,0 +1,216 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Holds signaling frames for users who are briefly offline (typically a mobile client switching
+// networks) and hands them over when that user's next user_online arrives, so an offer or its
+// ICE candidates don't have to be renegotiated from scratch. Frames live for ttl-ms.
+//
+// Within a user's mailbox a frame is stored under a key (type + sender): a newer offer replaces
+// the older one in place. ICE candidates from one sender share a single entry; repeated candidates
+// (client retries) are only kept once. Each mailbox is capped in frames and bytes (oldest entries
+// go first, and the entry just written loses its oldest candidates) and the total across users is
+// capped too (least recently written mailbox goes first, then the one being written is trimmed).
+// Sizes are counted in payload characters, which is close to bytes for signaling JSON.
+@Component
+public class SignalingMailbox {
+
+    @Value("${signaling.mailbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${signaling.mailbox.ttl-ms:15000}")
+    private long ttlMs = 15000;
+
+    @Value("${signaling.mailbox.max-frames-per-user:64}")
+    private int maxFramesPerUser = 64;
+
+    @Value("${signaling.mailbox.max-bytes-per-user:262144}")
+    private long maxBytesPerUser = 262144;
+
+    @Value("${signaling.mailbox.max-total-bytes:33554432}")
+    private long maxTotalBytes = 33554432;
+
+    private static class Entry {
+        final List<String> frames = new ArrayList<>(1);
+        LinkedHashSet<String> mergeKeys; // ICE entries only, in the same order as frames
+        long bytes;
+        long expiresAt;
+    }
+
+    private static class Box {
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        int frames;
+        long bytes;
+    }
+
+    // Insertion order is write order (boxes are re-inserted on every write), so the first box is the
+    // least recently written one. Guarded by "this"; signaling to offline users is a slow path.
+    private final LinkedHashMap<String, Box> boxes = new LinkedHashMap<>();
+    private long totalBytes;
+    private long nextSweep;
+
+    private long held;
+    private long merged;
+    private long delivered;
+    private long expired;
+    private long evicted;
+
+    // mergeKey == null: the frame replaces whatever is stored under key.
+    // mergeKey != null: the frame joins the entry under key unless one with the same mergeKey is there.
+    // Returns false if the frame was not kept.
+    public synchronized boolean hold(String userId, String key, String mergeKey, String frame) {
+        if (!enabled || userId == null || frame.length() > Math.min(maxBytesPerUser, maxTotalBytes)) return false;
+
+        long now = System.nanoTime();
+        if (nextSweep == 0 || now - nextSweep >= 0) {
+            sweep(now);
+            nextSweep = now + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        }
+
+        Box box = boxes.remove(userId);
+        if (box == null) box = new Box();
+        boxes.put(userId, box);
+
+        Entry entry = box.entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            box.entries.put(key, entry);
+        } else if (mergeKey == null || entry.expiresAt - now <= 0) {
+            // Replaced (or gone stale) in place, so it keeps its position in delivery order
+            if (entry.expiresAt - now <= 0) expired += entry.frames.size();
+            remove(box, entry);
+            entry.frames.clear();
+            entry.mergeKeys = null;
+            entry.bytes = 0;
+        }
+        if (mergeKey != null) {
+            if (entry.mergeKeys == null) entry.mergeKeys = new LinkedHashSet<>();
+            if (!entry.mergeKeys.add(mergeKey)) {
+                merged++;
+                entry.expiresAt = now + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+                return true;
+            }
+        }
+
+        entry.frames.add(frame);
+        entry.bytes += frame.length();
+        entry.expiresAt = now + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        box.frames++;
+        box.bytes += frame.length();
+        totalBytes += frame.length();
+        held++;
+
+        trim(box, entry, maxFramesPerUser, maxBytesPerUser);
+
+        // Global cap: whole mailboxes, least recently written first; this one is last
+        Iterator<Map.Entry<String, Box>> boxIt = boxes.entrySet().iterator();
+        while (totalBytes > maxTotalBytes && boxIt.hasNext()) {
+            Box oldest = boxIt.next().getValue();
+            if (oldest == box) break;
+            evicted += oldest.frames;
+            totalBytes -= oldest.bytes;
+            boxIt.remove();
+        }
+        if (totalBytes > maxTotalBytes) {
+            trim(box, entry, maxFramesPerUser, box.bytes - (totalBytes - maxTotalBytes));
+        }
+        return true;
+    }
+
+    // Drops whole entries oldest first until the box fits. The entry just written only loses its
+    // older frames (merged ICE candidates), never the newest one, which fits the caps on its own,
+    // so the box always fits when this returns.
+    private void trim(Box box, Entry current, int maxFrames, long maxBytes) {
+        Iterator<Entry> it = box.entries.values().iterator();
+        while ((box.frames > maxFrames || box.bytes > maxBytes) && it.hasNext()) {
+            Entry oldest = it.next();
+            if (oldest != current) {
+                evicted += oldest.frames.size();
+                remove(box, oldest);
+                it.remove();
+                continue;
+            }
+            while ((box.frames > maxFrames || box.bytes > maxBytes) && current.frames.size() > 1) {
+                String frame = current.frames.remove(0);
+                if (current.mergeKeys != null) {
+                    Iterator<String> keys = current.mergeKeys.iterator();
+                    keys.next();
+                    keys.remove();
+                }
+                current.bytes -= frame.length();
+                box.frames--;
+                box.bytes -= frame.length();
+                totalBytes -= frame.length();
+                evicted++;
+            }
+        }
+    }
+
+    // Everything still fresh for this user, in the order it was first held; empties the mailbox
+    public synchronized List<String> take(String userId) {
+        Box box = boxes.remove(userId);
+        if (box == null) return List.of();
+        totalBytes -= box.bytes;
+
+        long now = System.nanoTime();
+        List<String> frames = new ArrayList<>(box.frames);
+        for (Entry entry : box.entries.values()) {
+            if (entry.expiresAt - now <= 0) {
+                expired += entry.frames.size();
+            } else {
+                frames.addAll(entry.frames);
+            }
+        }
+        delivered += frames.size();
+        return frames;
+    }
+
+    public synchronized void discard(String userId) {
+        Box box = boxes.remove(userId);
+        if (box != null) totalBytes -= box.bytes;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        return Map.of(
+                "mailboxes", boxes.size(),
+                "bytes", totalBytes,
+                "held", held,
+                "merged", merged,
+                "delivered", delivered,
+                "expired", expired,
+                "evicted", evicted,
+                "ttlMs", ttlMs);
+    }
+
+    private void sweep(long now) {
+        Iterator<Box> boxIt = boxes.values().iterator();
+        while (boxIt.hasNext()) {
+            Box box = boxIt.next();
+            Iterator<Entry> it = box.entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.expiresAt - now <= 0) {
+                    expired += entry.frames.size();
+                    remove(box, entry);
+                    it.remove();
+                }
+            }
+            if (box.entries.isEmpty()) boxIt.remove();
+        }
+    }
+
+    private void remove(Box box, Entry entry) {
+        box.frames -= entry.frames.size();
+        box.bytes -= entry.bytes;
+        totalBytes -= entry.bytes;
+    }
+}
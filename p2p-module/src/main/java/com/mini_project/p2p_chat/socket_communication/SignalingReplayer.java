@@ -0,0 +1,92 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+
+// Feeds a captured journal back into a handler on a single thread, in recorded order, so
+// the same journal always produces the same interleaving of sessions.
+//   speed = 1.0 keeps the recorded pacing, 10.0 plays ten times faster, 0 plays flat out.
+public class SignalingReplayer {
+
+    private final WebSocketHandler handler;
+    private final double speed;
+
+    public SignalingReplayer(WebSocketHandler handler, double speed) {
+        this.handler = handler;
+        this.speed = speed;
+    }
+
+    public Map<String, Object> replay(List<SignalingJournal.Record> records) throws Exception {
+        Map<String, ReplaySession> sessions = new HashMap<>();
+        long framesIn = 0;
+        long start = System.nanoTime();
+
+        for (SignalingJournal.Record record : records) {
+            if (speed > 0) {
+                long due = start + (long) (record.offsetNanos / speed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+
+            switch (record.type) {
+                case SignalingJournal.OPEN: {
+                    ReplaySession session = new ReplaySession(record.sessionId);
+                    sessions.put(record.sessionId, session);
+                    handler.afterConnectionEstablished(session);
+                    break;
+                }
+                case SignalingJournal.TEXT: {
+                    ReplaySession session = sessions.get(record.sessionId);
+                    handler.handleMessage(session, new TextMessage(record.payload));
+                    framesIn++;
+                    break;
+                }
+                case SignalingJournal.BINARY: {
+                    // Channel ids in relay frames line up because a fresh handler hands them
+                    // out in the same order the recorded relay_accepts arrive
+                    ReplaySession session = sessions.get(record.sessionId);
+                    handler.handleMessage(session, new BinaryMessage(record.data));
+                    framesIn++;
+                    break;
+                }
+                case SignalingJournal.CLOSE: {
+                    ReplaySession session = sessions.get(record.sessionId);
+                    session.markClosed();
+                    handler.afterConnectionClosed(session, new CloseStatus(record.closeCode));
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long framesOut = 0;
+        long bytesOut = 0;
+        for (ReplaySession session : sessions.values()) {
+            framesOut += session.getFramesSent();
+            bytesOut += session.getBytesSent();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("records", records.size());
+        stats.put("sessions", sessions.size());
+        stats.put("framesIn", framesIn);
+        stats.put("framesOut", framesOut);
+        stats.put("bytesOut", bytesOut);
+        stats.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        stats.put("framesInPerSec", elapsed == 0 ? 0.0 : framesIn / (elapsed / 1e9));
+        return stats;
+    }
+}
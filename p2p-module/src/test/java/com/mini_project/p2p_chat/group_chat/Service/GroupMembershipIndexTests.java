@@ -0,0 +1,101 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class GroupMembershipIndexTests {
+
+	private static int interned(GroupMembershipIndex index, String table) {
+		return ((Map<?, ?>) ReflectionTestUtils.getField(index, table)).size();
+	}
+
+	private static int allocated(GroupMembershipIndex index, String table) {
+		return ((List<?>) ReflectionTestUtils.getField(index, table)).size();
+	}
+
+	@Test
+	void usersOutsideGroupsAreNotInterned() {
+		GroupMembershipIndex index = new GroupMembershipIndex();
+		for (int i = 0; i < 100; i++) {
+			index.setOnline("user-" + i);
+		}
+		for (int i = 0; i < 100; i++) {
+			index.setOffline("user-" + i);
+		}
+
+		assertEquals(0, interned(index, "userIndex"));
+		assertEquals(0, allocated(index, "users"));
+	}
+
+	@Test
+	void userOnlineBeforeJoiningCountsAsOnline() {
+		GroupMembershipIndex index = new GroupMembershipIndex();
+		index.setOnline("alice");
+		index.addMember(1L, "alice");
+		index.addMember(1L, "bob");
+
+		assertEquals(List.of("alice"), index.getOnlineMembers(1L));
+
+		index.setOffline("alice");
+		index.setOnline("bob");
+		assertEquals(List.of("bob"), index.getOnlineMembers(1L));
+	}
+
+	@Test
+	void removedGroupReleasesItsIds() {
+		GroupMembershipIndex index = new GroupMembershipIndex();
+		for (long group = 0; group < 50; group++) {
+			index.setOnline("warmup-" + group);
+			index.addMember(group, "warmup-" + group);
+			index.addMember(group, "alice");
+			index.removeGroup(group);
+			index.setOffline("warmup-" + group);
+		}
+
+		assertEquals(0, interned(index, "userIndex"));
+		assertEquals(0, interned(index, "groupIndex"));
+		// Each round reused the ids released by the one before
+		assertEquals(2, allocated(index, "users"));
+		assertEquals(1, allocated(index, "groups"));
+		assertFalse(index.hasGroup(0L));
+	}
+
+	@Test
+	void reusedIdsStartClean() {
+		GroupMembershipIndex index = new GroupMembershipIndex();
+		index.setOnline("alice");
+		index.addMember(1L, "alice");
+		index.addMember(1L, "carol");
+		index.removeMember(1L, "alice");
+
+		// bob takes alice's id and must not inherit her presence or groups
+		index.addMember(2L, "bob");
+		assertEquals(List.of(), index.getOnlineMembers(2L));
+		assertEquals(List.of(), index.getSharedGroups("bob", "carol"));
+
+		index.removeGroup(1L);
+		index.addMember(3L, "carol");
+		assertEquals(List.of(), index.getCommonMembers(2L, 3L));
+		assertEquals(List.of(3L), index.getSharedGroups("carol", "carol"));
+	}
+
+	@Test
+	void setMembersReleasesOnlyThoseWhoLeft() {
+		GroupMembershipIndex index = new GroupMembershipIndex();
+		index.setMembers(1L, List.of("alice", "bob"));
+		index.setMembers(1L, List.of("bob", "carol"));
+
+		assertEquals(2, interned(index, "userIndex"));
+		assertTrue(index.isMember(1L, "bob"));
+		assertTrue(index.isMember(1L, "carol"));
+		assertFalse(index.isMember(1L, "alice"));
+		assertEquals(2, index.countMembers(1L));
+	}
+}
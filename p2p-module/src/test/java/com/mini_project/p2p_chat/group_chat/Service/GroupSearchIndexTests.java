@@ -0,0 +1,151 @@
+package com.mini_project.p2p_chat.group_chat.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mini_project.p2p_chat.group_chat.DTO.ChatMessage;
+
+class GroupSearchIndexTests {
+
+	private static final Long GROUP = 7L;
+
+	private static GroupSearchIndex index(int mergeFactor, int maxDocsPerGroup) {
+		GroupSearchIndex index = new GroupSearchIndex();
+		// Passes are run by hand; the scheduled one never fires during a test
+		ReflectionTestUtils.setField(index, "refreshMs", 3_600_000L);
+		ReflectionTestUtils.setField(index, "mergeFactor", mergeFactor);
+		ReflectionTestUtils.setField(index, "maxDocsPerGroup", maxDocsPerGroup);
+		ReflectionTestUtils.setField(index, "maxQueued", 100_000);
+		index.start();
+		return index;
+	}
+
+	private static ChatMessage message(Long groupId, long seq, String content) {
+		ChatMessage message = new ChatMessage();
+		message.setGroupId(groupId);
+		message.setSeq(seq);
+		message.setContent(content);
+		return message;
+	}
+
+	private static List<Long> seqs(GroupSearchIndex.Page page) {
+		return page.results.stream().map(ChatMessage::getSeq).toList();
+	}
+
+	@Test
+	void removedGroupIsNotRecreatedByQueuedMessages() {
+		GroupSearchIndex index = index(10, 1000);
+		try {
+			index.enqueue(message(GROUP, 1, "hello there"));
+			index.removeGroup(GROUP);
+			index.refresh();
+
+			assertEquals(0, index.getStats().get("groups"));
+			assertEquals(0L, index.getStats().get("indexed"));
+			assertTrue(index.search(GROUP, "hello", null, 10).results.isEmpty());
+		} finally {
+			index.stop();
+		}
+	}
+
+	@Test
+	void removedGroupIsForgottenOnceTheQueueHasDrained() {
+		GroupSearchIndex index = index(10, 1000);
+		try {
+			index.removeGroup(GROUP);
+			index.refresh();
+			index.refresh();
+
+			index.enqueue(message(GROUP, 1, "hello again"));
+			index.refresh();
+
+			assertEquals(List.of(1L), seqs(index.search(GROUP, "hello", null, 10)));
+		} finally {
+			index.stop();
+		}
+	}
+
+	@Test
+	void searchPagesNewestFirst() {
+		GroupSearchIndex index = index(10, 1000);
+		try {
+			for (long seq = 1; seq <= 5; seq++) {
+				index.enqueue(message(GROUP, seq, seq % 2 == 1 ? "deploy done" : "lunch"));
+			}
+			index.enqueue(message(8L, 1, "deploy elsewhere"));
+			index.refresh();
+
+			GroupSearchIndex.Page first = index.search(GROUP, "Deploy", null, 2);
+			assertEquals(List.of(5L, 3L), seqs(first));
+			assertEquals(3L, first.nextBefore);
+
+			GroupSearchIndex.Page second = index.search(GROUP, "deploy", first.nextBefore, 2);
+			assertEquals(List.of(1L), seqs(second));
+			assertNull(second.nextBefore);
+
+			assertTrue(index.search(GROUP, "deploy lunch", null, 10).results.isEmpty());
+		} finally {
+			index.stop();
+		}
+	}
+
+	@Test
+	void capHidesAndDropsOldDocs() {
+		GroupSearchIndex index = index(10, 3);
+		try {
+			index.enqueue(message(GROUP, 1, "note"));
+			index.enqueue(message(GROUP, 2, "note"));
+			index.refresh();
+			for (long seq = 3; seq <= 6; seq++) {
+				index.enqueue(message(GROUP, seq, "note"));
+			}
+			index.refresh();
+
+			assertEquals(List.of(6L, 5L, 4L), seqs(index.search(GROUP, "note", null, 10)));
+			// The first segment is entirely past the cap, so it is gone rather than just skipped
+			assertEquals(1, index.getStats().get("segments"));
+		} finally {
+			index.stop();
+		}
+	}
+
+	@Test
+	void mergeKeepsEveryDoc() throws InterruptedException {
+		GroupSearchIndex index = index(2, 1000);
+		try {
+			for (long seq = 1; seq <= 3; seq++) {
+				index.enqueue(message(GROUP, seq, "merge me " + seq));
+				index.refresh();
+			}
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while ((Long) index.getStats().get("merges") == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(1L, index.getStats().get("merges"));
+			assertEquals(2, index.getStats().get("segments"));
+			assertEquals(List.of(3L, 2L, 1L), seqs(index.search(GROUP, "merge", null, 10)));
+			assertEquals(List.of(2L), seqs(index.search(GROUP, "me 2", null, 10)));
+		} finally {
+			index.stop();
+		}
+	}
+
+	@Test
+	void tokensDoNotDependOnDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr"));
+		try {
+			assertEquals(List.of("title", "id"), GroupSearchIndex.tokenize("TITLE, ID!"));
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.mini_project.p2p_chat.socket_communication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SignalingMailboxTests {
+
+	private static final String ICE_KEY = "ice_candidate:alice";
+
+	private static SignalingMailbox mailbox(int maxFramesPerUser, long maxBytesPerUser, long maxTotalBytes) {
+		SignalingMailbox mailbox = new SignalingMailbox();
+		ReflectionTestUtils.setField(mailbox, "maxFramesPerUser", maxFramesPerUser);
+		ReflectionTestUtils.setField(mailbox, "maxBytesPerUser", maxBytesPerUser);
+		ReflectionTestUtils.setField(mailbox, "maxTotalBytes", maxTotalBytes);
+		return mailbox;
+	}
+
+	// All candidate frames have the same length
+	private static String ice(int i) {
+		return String.format("{\"type\":\"ice_candidate\",\"candidate\":\"c%05d\"}", i);
+	}
+
+	private static long bytes(List<String> frames) {
+		return frames.stream().mapToLong(String::length).sum();
+	}
+
+	private static long heldBytes(SignalingMailbox mailbox) {
+		return (Long) mailbox.getStats().get("bytes");
+	}
+
+	@Test
+	void mergedCandidatesStayWithinFrameCap() {
+		SignalingMailbox mailbox = mailbox(8, 1 << 20, 1 << 30);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(mailbox.hold("bob", ICE_KEY, "c" + i, ice(i)));
+		}
+
+		List<String> frames = mailbox.take("bob");
+		assertEquals(8, frames.size());
+		assertEquals(ice(992), frames.get(0));
+		assertEquals(ice(999), frames.get(7));
+	}
+
+	@Test
+	void mergedCandidatesStayWithinByteCap() {
+		long maxBytes = 10L * ice(0).length();
+		SignalingMailbox mailbox = mailbox(1000, maxBytes, 1 << 30);
+		for (int i = 0; i < 1000; i++) {
+			mailbox.hold("bob", ICE_KEY, "c" + i, ice(i));
+			assertTrue(heldBytes(mailbox) <= maxBytes);
+		}
+
+		List<String> frames = mailbox.take("bob");
+		assertEquals(maxBytes, bytes(frames));
+		assertEquals(ice(999), frames.get(frames.size() - 1));
+	}
+
+	@Test
+	void trimmedCandidateIsHeldAgainWhenRetried() {
+		SignalingMailbox mailbox = mailbox(2, 1 << 20, 1 << 30);
+		mailbox.hold("bob", ICE_KEY, "c0", ice(0));
+		mailbox.hold("bob", ICE_KEY, "c1", ice(1));
+		mailbox.hold("bob", ICE_KEY, "c2", ice(2));
+		mailbox.hold("bob", ICE_KEY, "c0", ice(0));
+
+		assertEquals(List.of(ice(2), ice(0)), mailbox.take("bob"));
+	}
+
+	@Test
+	void mailboxesStayWithinGlobalCap() {
+		long maxTotal = 20L * ice(0).length();
+		SignalingMailbox mailbox = mailbox(1000, 1 << 20, maxTotal);
+		for (int user = 0; user < 10; user++) {
+			for (int i = 0; i < 5; i++) {
+				mailbox.hold("user-" + user, ICE_KEY, "c" + i, ice(i));
+				assertTrue(heldBytes(mailbox) <= maxTotal);
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			mailbox.hold("bob", ICE_KEY, "c" + i, ice(i));
+			assertTrue(heldBytes(mailbox) <= maxTotal);
+		}
+
+		List<String> frames = mailbox.take("bob");
+		assertEquals(maxTotal, bytes(frames));
+		assertEquals(ice(999), frames.get(frames.size() - 1));
+		assertEquals(0L, heldBytes(mailbox));
+	}
+
+	@Test
+	void frameLargerThanCapsIsRefused() {
+		SignalingMailbox mailbox = mailbox(8, 1 << 20, 16);
+		assertFalse(mailbox.hold("bob", "offer:alice", null, ice(0)));
+		assertEquals(List.of(), mailbox.take("bob"));
+	}
+}